@@ -0,0 +1,84 @@
+package io.github.dgileadi.usaddress;
+
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures how parsing a file scales with the number of threads, streaming it
+ * through one reader and splitting it into chunks that are read in parallel.
+ * The file holds the OSM corpus ten times over.
+ * <p>
+ * Run with {@code mvn -P benchmark test-compile exec:exec
+ * -Djmh.args="ChunkedFileBenchmark"}, adding {@code -p threads=1,2,4,8,16} to
+ * match the cores you have.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ChunkedFileBenchmark {
+    private static final int COPIES = 10;
+
+    @Param({ "1", "2", "4", "8" })
+    int threads;
+
+    private Path directory;
+    private Path input;
+    private Path output;
+    private BulkParser bulkParser;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        List<String> addresses = TestCrfModel.addressStrings("synthetic_osm_data.xml");
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < COPIES; i++) {
+            lines.addAll(addresses);
+        }
+        directory = Files.createTempDirectory("usaddr");
+        input = Files.write(directory.resolve("addresses.txt"), lines);
+        output = directory.resolve("parsed.ndjson");
+        bulkParser = BulkParser.builder().threads(threads).chunkSize(64 * 1024).build();
+        AddressParser.getDefault().load();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        Files.deleteIfExists(input);
+        Files.deleteIfExists(output);
+        Files.deleteIfExists(directory);
+    }
+
+    @Benchmark
+    public BulkParser.Progress stream() throws Exception {
+        try (Reader reader = Files.newBufferedReader(input); Writer writer = Files.newBufferedWriter(output)) {
+            return bulkParser.run(reader, writer);
+        }
+    }
+
+    @Benchmark
+    public BulkParser.Progress chunks() throws Exception {
+        return bulkParser.run(input, output);
+    }
+
+}
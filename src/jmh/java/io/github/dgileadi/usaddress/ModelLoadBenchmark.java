@@ -0,0 +1,73 @@
+package io.github.dgileadi.usaddress;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures how long it takes to create a parser and load its model from a
+ * file: decoding it from a copy of the file in the heap, decoding it from a
+ * memory mapping of the file, and reusing the model another parser has
+ * already loaded from the same file. Each benchmark returns a loaded parser.
+ * <p>
+ * Run with {@code mvn -P benchmark test-compile exec:exec
+ * -Djmh.args="ModelLoadBenchmark -prof gc"}. The {@code gc.alloc.rate.norm}
+ * figures show the memory each new parser allocates.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ModelLoadBenchmark {
+    private Path modelFile;
+    // keeps the shared model loaded
+    private AddressParser sharingParser;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        modelFile = Files.createTempFile("usaddr", ".crfsuite");
+        try (InputStream input = AddressParser.class.getResourceAsStream("/usaddr.crfsuite")) {
+            Files.copy(input, modelFile, StandardCopyOption.REPLACE_EXISTING);
+        }
+        sharingParser = AddressParser.builder().sharedModelPath(modelFile).build().load();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        sharingParser = null;
+        Files.deleteIfExists(modelFile);
+    }
+
+    @Benchmark
+    public AddressParser read() throws Exception {
+        return AddressParser.builder().modelPath(modelFile).build().load();
+    }
+
+    @Benchmark
+    public AddressParser map() throws Exception {
+        return AddressParser.builder().modelBuffer(ModelStore.map(modelFile)).build().load();
+    }
+
+    @Benchmark
+    public AddressParser shared() throws Exception {
+        return AddressParser.builder().sharedModelPath(modelFile).build().load();
+    }
+
+}
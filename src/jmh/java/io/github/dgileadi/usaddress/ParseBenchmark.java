@@ -0,0 +1,155 @@
+package io.github.dgileadi.usaddress;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures each stage of parsing separately, and parsing as a whole, one
+ * address per operation. Each stage's input is computed up front so that only
+ * the stage itself is measured.
+ * <p>
+ * Run with {@code mvn -P benchmark test-compile exec:exec}, adding
+ * {@code -Djmh.args="-prof gc"} to report allocation rates or
+ * {@code -Djmh.args="ParseBenchmark.tag"} to run a single stage.
+ */
+@BenchmarkMode({ Mode.Throughput, Mode.AverageTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParseBenchmark {
+    private static final int GENERATED_INPUTS = 1000;
+
+    /**
+     * The addresses to parse, and the output of each stage for them.
+     */
+    @State(Scope.Benchmark)
+    public static class Inputs {
+        /**
+         * A test corpus, {@code long} for several corpus addresses run together
+         * or {@code garbage} for random punctuation, digits and letters.
+         */
+        @Param({ "synthetic_osm_data.xml", "us50_test_tagged.xml", "long", "garbage" })
+        String input;
+
+        AddressParser parser;
+        AddressParser instrumentedParser;
+        ParserModel model;
+        String[] addresses;
+        List<List<String>> tokens;
+        List<int[][]> features;
+
+        @Setup(Level.Trial)
+        public void setUp() throws Exception {
+            byte[] contents;
+            try (InputStream stream = AddressParser.class.getResourceAsStream("/usaddr.crfsuite")) {
+                contents = stream.readAllBytes();
+            }
+            parser = AddressParser.builder().modelBuffer(ByteBuffer.wrap(contents)).build().load();
+            instrumentedParser = AddressParser.builder().modelBuffer(ByteBuffer.wrap(contents))
+                    .listener(new ParseMetrics()).build().load();
+            model = new ParserModel("benchmark", ByteBuffer.wrap(contents),
+                    Runtime.getRuntime().availableProcessors(), 0, 0);
+
+            addresses = addresses(input).toArray(new String[0]);
+            tokens = new ArrayList<>();
+            features = new ArrayList<>();
+            for (String address : addresses) {
+                List<String> addressTokens = AddressParser.tokenize(address);
+                tokens.add(addressTokens);
+                features.add(AddressParser.tokens2features(model, addressTokens));
+            }
+        }
+
+        private static List<String> addresses(final String input) throws Exception {
+            Random random = new Random(42);
+            if ("long".equals(input)) {
+                List<String> corpus = TestCrfModel.addressStrings("synthetic_osm_data.xml");
+                List<String> addresses = new ArrayList<>();
+                for (int i = 0; i < GENERATED_INPUTS; i++) {
+                    StringBuilder address = new StringBuilder();
+                    for (int j = 0; j < 8; j++) {
+                        address.append(corpus.get(random.nextInt(corpus.size()))).append(", ");
+                    }
+                    addresses.add(address.toString());
+                }
+                return addresses;
+            } else if ("garbage".equals(input)) {
+                String chars = " ,;#&().-/'0123456789abcdefghijklmnopqrstuvwxyzABCXYZ";
+                List<String> addresses = new ArrayList<>();
+                for (int i = 0; i < GENERATED_INPUTS; i++) {
+                    char[] address = new char[10 + random.nextInt(90)];
+                    for (int j = 0; j < address.length; j++) {
+                        address[j] = chars.charAt(random.nextInt(chars.length()));
+                    }
+                    addresses.add(new String(address));
+                }
+                return addresses;
+            } else {
+                return TestCrfModel.addressStrings(input);
+            }
+        }
+    }
+
+    /**
+     * Cycles each benchmark thread through the inputs.
+     */
+    @State(Scope.Thread)
+    public static class Cursor {
+        private int next;
+
+        int next(final Inputs inputs) {
+            int index = next;
+            next = index + 1 == inputs.addresses.length ? 0 : index + 1;
+            return index;
+        }
+    }
+
+    @Benchmark
+    public List<String> tokenize(final Inputs inputs, final Cursor cursor) {
+        return AddressParser.tokenize(inputs.addresses[cursor.next(inputs)]);
+    }
+
+    @Benchmark
+    public int[][] features(final Inputs inputs, final Cursor cursor) {
+        return AddressParser.tokens2features(inputs.model, inputs.tokens.get(cursor.next(inputs)));
+    }
+
+    @Benchmark
+    public int[] tag(final Inputs inputs, final Cursor cursor) {
+        return inputs.model.tag(inputs.features.get(cursor.next(inputs)));
+    }
+
+    @Benchmark
+    public Address parse(final Inputs inputs, final Cursor cursor) {
+        return inputs.parser.parseAddress(inputs.addresses[cursor.next(inputs)]);
+    }
+
+    @Benchmark
+    public Address parseWithMetrics(final Inputs inputs, final Cursor cursor) {
+        return inputs.instrumentedParser.parseAddress(inputs.addresses[cursor.next(inputs)]);
+    }
+
+    @Benchmark
+    public Address parseAndClean(final Inputs inputs, final Cursor cursor) {
+        return inputs.parser.parseAndCleanAddress(inputs.addresses[cursor.next(inputs)]);
+    }
+
+}
@@ -0,0 +1,69 @@
+package io.github.dgileadi.usaddress;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the cost of a keystroke when the OSM corpus addresses are typed one
+ * character at a time, parsing the whole text after each one compared with
+ * parsing it in a {@link ParseSession}.
+ * <p>
+ * Run with {@code mvn -P benchmark test-compile exec:exec
+ * -Djmh.args="ParseSessionBenchmark -prof gc"}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ParseSessionBenchmark {
+    private AddressParser parser;
+    private ParseSession session;
+    // every prefix of every address, in typing order
+    private String[] keystrokes;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        parser = AddressParser.getDefault().load();
+        session = parser.newSession();
+        List<String> typed = new ArrayList<>();
+        for (String address : TestCrfModel.addressStrings("synthetic_osm_data.xml")) {
+            for (int end = 1; end <= address.length(); end++) {
+                typed.add(address.substring(0, end));
+            }
+        }
+        keystrokes = typed.toArray(new String[0]);
+    }
+
+    private String nextKeystroke() {
+        int index = next;
+        next = index + 1 == keystrokes.length ? 0 : index + 1;
+        return keystrokes[index];
+    }
+
+    @Benchmark
+    public Address parseAndClean() {
+        return parser.parseAndCleanAddress(nextKeystroke());
+    }
+
+    @Benchmark
+    public Address session() {
+        return session.parseAndClean(nextKeystroke());
+    }
+
+}
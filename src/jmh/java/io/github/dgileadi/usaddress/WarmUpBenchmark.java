@@ -0,0 +1,62 @@
+package io.github.dgileadi.usaddress;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures how long a fresh JVM takes to parse its first thousand addresses,
+ * with and without {@link AddressParser#warmUp()} first. Each fork times a
+ * single pass, so the {@code warmedUp=false} figure is what the first
+ * requests after a deploy see.
+ * <p>
+ * The addresses come from a corpus that the bundled warm-up set doesn't draw
+ * on, and results aren't cached.
+ * <p>
+ * Run with {@code mvn -P benchmark test-compile exec:exec
+ * -Djmh.args="WarmUpBenchmark"}.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(10)
+@State(Scope.Benchmark)
+public class WarmUpBenchmark {
+    @Param({ "false", "true" })
+    private boolean warmedUp;
+
+    private AddressParser parser;
+    private List<String> addresses;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        addresses = TestCrfModel.addressStrings("synthetic_clean_osm_data.xml").subList(0, 1000);
+        parser = AddressParser.builder().resultCacheSize(0).build().load();
+        if (warmedUp) {
+            parser.warmUp();
+        }
+    }
+
+    @Benchmark
+    public int firstThousand() {
+        int fields = 0;
+        for (String address : addresses) {
+            fields += parser.parseAndCleanAddress(address).getFields().size();
+        }
+        return fields;
+    }
+
+}
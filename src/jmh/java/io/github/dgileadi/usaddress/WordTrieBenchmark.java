@@ -0,0 +1,64 @@
+package io.github.dgileadi.usaddress;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares looking corpus tokens up in the street type set, after lowercasing
+ * them and removing periods, with matching them against a {@link WordTrie}.
+ * <p>
+ * Run with {@code mvn -P benchmark test-compile exec:exec
+ * -Djmh.args="WordTrieBenchmark -prof gc"}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class WordTrieBenchmark {
+    private WordTrie trie;
+    private String[] tokens;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        trie = new WordTrie(AddressParser.STREET_NAMES);
+        List<String> corpusTokens = new ArrayList<>();
+        for (String address : TestCrfModel.addressStrings("synthetic_osm_data.xml")) {
+            corpusTokens.addAll(AddressParser.tokenize(address));
+        }
+        tokens = corpusTokens.toArray(new String[0]);
+    }
+
+    private String nextToken() {
+        int index = next;
+        next = index + 1 == tokens.length ? 0 : index + 1;
+        return tokens[index];
+    }
+
+    @Benchmark
+    public boolean set() {
+        return AddressParser.STREET_NAMES.contains(nextToken().toLowerCase(Locale.US).replace(".", ""));
+    }
+
+    @Benchmark
+    public boolean trie() {
+        return trie.matches(nextToken());
+    }
+
+}
@@ -1,10 +1,19 @@
 package io.github.dgileadi.usaddress;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
-import java.util.regex.Pattern;
+import java.util.Map;
 
 /**
- * A parsed address.
+ * A parsed address. Addresses are immutable, so they may be shared between
+ * threads.
+ * <p>
+ * Parsed addresses are stored compactly, as the original address string, the
+ * offsets of its tokens and the type of each field, so that millions of them
+ * can be kept in memory. Field values are only built when they're asked for.
  */
 public class Address {
 
@@ -47,6 +56,14 @@ public class Address {
         COUNTRY_NAME("CountryName"),
         ZIP_PLUS4("ZipPlus4");
 
+        private static final FieldType[] VALUES = values();
+        private static final Map<String, FieldType> BY_LABEL = new HashMap<>();
+        static {
+            for (FieldType fieldType : VALUES) {
+                BY_LABEL.put(fieldType.label, fieldType);
+            }
+        }
+
         private String label;
 
         public String getLabel() {
@@ -57,21 +74,22 @@ public class Address {
             this.label = label;
         }
 
-        private static FieldType forLabel(String label) {
-            for (FieldType fieldType : FieldType.values()) {
-                if (fieldType.label.equals(label)) {
-                    return fieldType;
-                }
+        static FieldType forLabel(final String label) {
+            FieldType fieldType = BY_LABEL.get(label);
+            if (fieldType == null) {
+                throw new IllegalArgumentException(label);
             }
-            throw new IllegalArgumentException(label);
+            return fieldType;
+        }
+
+        static FieldType forOrdinal(final int ordinal) {
+            return VALUES[ordinal];
         }
     }
 
     public static class Field {
-        private static final Pattern CLEAN_VALUE_PATTERN = Pattern.compile("[\\s,;]+$|^[\\s,;]+");
-
-        private String value;
-        private FieldType type;
+        private final String value;
+        private final FieldType type;
 
         Field(final String value, final String type) {
             this(value, FieldType.forLabel(type));
@@ -95,22 +113,84 @@ public class Address {
         public FieldType getType() {
             return type;
         }
+    }
 
-        void appendValue(String suffix) {
-            value = value + " " + suffix;
-        }
+    private final Type type;
+    // the original address and the start and end of each token in it, or null
+    // for addresses built from a list of fields
+    private final String input;
+    private final int[] tokenOffsets;
+    // the FieldType ordinal of each field
+    private final byte[] fieldTypes;
+    // the index just past each field's last token, or null if each field is a
+    // single token
+    private final int[] fieldEnds;
+    // a bit for each FieldType ordinal that some field has
+    private final long typeMask;
+    // the version of the model that parsed the address, or null
+    private final String modelVersion;
+    private volatile List<Field> fields;
+    // the index of the first field of each FieldType ordinal, or -1
+    private volatile int[] fieldIndex;
 
-        void cleanValue() {
-            value = CLEAN_VALUE_PATTERN.matcher(value).replaceAll("");
+    protected Address(Type type, List<Field> fields) {
+        this.type = type;
+        this.fields = Collections.unmodifiableList(new ArrayList<>(fields));
+        this.input = null;
+        this.tokenOffsets = null;
+        this.fieldTypes = new byte[fields.size()];
+        for (int i = 0; i < fieldTypes.length; i++) {
+            fieldTypes[i] = (byte) fields.get(i).getType().ordinal();
         }
+        this.fieldEnds = null;
+        this.typeMask = typeMask(fieldTypes);
+        this.modelVersion = null;
     }
 
-    private Type type;
-    private List<Field> fields;
-
-    protected Address(Type type, List<Field> fields) {
+    /**
+     * @param type         the address type.
+     * @param input        the address string.
+     * @param tokenOffsets the start and end of each token in the address string,
+     *                     in pairs.
+     * @param fieldTypes   the {@link FieldType} ordinal of each field.
+     * @param fieldEnds    the index just past each field's last token, or
+     *                     {@code null} if each token is a field. Fields that span
+     *                     several tokens have their tokens joined by spaces and
+     *                     leading and trailing whitespace, commas and semicolons
+     *                     stripped.
+     * @param modelVersion the version of the model that parsed the address.
+     */
+    Address(final Type type, final String input, final int[] tokenOffsets, final byte[] fieldTypes,
+            final int[] fieldEnds, final String modelVersion) {
         this.type = type;
-        this.fields = fields;
+        this.input = input;
+        this.tokenOffsets = tokenOffsets;
+        this.fieldTypes = fieldTypes;
+        this.fieldEnds = fieldEnds;
+        this.typeMask = typeMask(fieldTypes);
+        this.modelVersion = modelVersion;
+    }
+
+    /**
+     * @param fieldTypes the {@link FieldType} ordinal of each field.
+     * @return a bit for each field type ordinal that's present.
+     */
+    static long typeMask(final byte[] fieldTypes) {
+        long mask = 0;
+        for (byte fieldType : fieldTypes) {
+            mask |= 1L << fieldType;
+        }
+        return mask;
+    }
+
+    /**
+     * @return the version of the model that parsed the address, as set with
+     *         {@link AddressParser.Builder#modelVersion(String)} or
+     *         {@link AddressParser#swapModel(java.nio.file.Path, String)}, or
+     *         {@code null} if the address was built from a list of fields.
+     */
+    public String getModelVersion() {
+        return modelVersion;
     }
 
     /**
@@ -123,10 +203,93 @@ public class Address {
     /**
      * @return the parsed fields of the address, in parsed order. Each key is the
      *         detected filed type and each corresponding value is the parsed field
-     *         value.
+     *         value. The list can't be modified.
      */
     public List<Field> getFields() {
-        return fields;
+        List<Field> result = fields;
+        if (result == null) {
+            Field[] array = new Field[fieldTypes.length];
+            for (int i = 0; i < array.length; i++) {
+                array[i] = new Field(value(i), FieldType.forOrdinal(fieldTypes[i]));
+            }
+            result = Collections.unmodifiableList(Arrays.asList(array));
+            fields = result;
+        }
+        return result;
+    }
+
+    /**
+     * @param type a field type.
+     * @return whether the address has a field of the type.
+     */
+    public boolean has(final FieldType type) {
+        return (typeMask & (1L << type.ordinal())) != 0;
+    }
+
+    /**
+     * @param type a field type.
+     * @return the first field of the type, or {@code null} if the address has
+     *         none.
+     */
+    public Field getField(final FieldType type) {
+        if (!has(type)) {
+            return null;
+        }
+        int[] index = fieldIndex;
+        if (index == null) {
+            index = new int[FieldType.VALUES.length];
+            Arrays.fill(index, -1);
+            for (int i = fieldTypes.length - 1; i >= 0; i--) {
+                index[fieldTypes[i]] = i;
+            }
+            fieldIndex = index;
+        }
+        return getFields().get(index[type.ordinal()]);
+    }
+
+    private String value(final int field) {
+        if (fieldEnds == null) {
+            return token(field);
+        }
+        int first = field == 0 ? 0 : fieldEnds[field - 1];
+        int end = fieldEnds[field];
+        String value;
+        if (end - first == 1) {
+            value = token(first);
+        } else {
+            StringBuilder joined = new StringBuilder();
+            for (int token = first; token < end; token++) {
+                if (token > first) {
+                    joined.append(' ');
+                }
+                joined.append(token(token));
+            }
+            value = joined.toString();
+        }
+        return strip(value);
+    }
+
+    private String token(final int token) {
+        return Tokens.text(input, tokenOffsets[token * 2], tokenOffsets[token * 2 + 1]);
+    }
+
+    /**
+     * Strip leading and trailing whitespace, commas and semicolons.
+     */
+    private static String strip(final String value) {
+        int start = 0;
+        int end = value.length();
+        while (start < end && isStripped(value.charAt(start))) {
+            ++start;
+        }
+        while (end > start && isStripped(value.charAt(end - 1))) {
+            --end;
+        }
+        return value.substring(start, end);
+    }
+
+    private static boolean isStripped(final char c) {
+        return c == ' ' || c == ',' || c == ';' || (c >= '\t' && c <= '\r');
     }
 
 }
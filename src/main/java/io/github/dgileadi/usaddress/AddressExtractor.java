@@ -0,0 +1,407 @@
+package io.github.dgileadi.usaddress;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Find addresses in free text, such as notes or emails, and parse them.
+ * <p>
+ * Parsing a whole document as one address would be slow and wrong, since the
+ * model expects its input to start and end with an address. Instead the text
+ * is tokenized as it's read, and a cheap scan of the tokens looks for the
+ * shapes that addresses take:
+ * <ul>
+ * <li>a token starting with a digit followed within a few tokens by a street
+ * type and perhaps a direction, such as {@code 123 N Main St NW}, or a
+ * {@code PO Box} followed by a number;</li>
+ * <li>then, unless a sentence or paragraph ends first, up to a few more tokens
+ * ending at a zip code or state, such as {@code , Springfield, IL 62701}.</li>
+ * </ul>
+ * Only those spans are parsed, and only the ones that the model also labels as
+ * a street address or PO box are reported.
+ * <p>
+ * Text is read in blocks, and only the tokens a span might still need are kept
+ * between blocks, so documents of any size are scanned in constant memory.
+ * <p>
+ * Extractors are thread-safe.
+ */
+public final class AddressExtractor {
+
+    /**
+     * An address found in a document.
+     */
+    public static final class Match {
+        private final long start;
+        private final long end;
+        private final String text;
+        private final Address address;
+
+        Match(final long start, final long end, final String text, final Address address) {
+            this.start = start;
+            this.end = end;
+            this.text = text;
+            this.address = address;
+        }
+
+        /**
+         * @return the offset of the address's first character in the document.
+         */
+        public long getStart() {
+            return start;
+        }
+
+        /**
+         * @return the offset just past the address's last character in the
+         *         document.
+         */
+        public long getEnd() {
+            return end;
+        }
+
+        /**
+         * @return the text of the address.
+         */
+        public String getText() {
+            return text;
+        }
+
+        /**
+         * @return the parsed address.
+         */
+        public Address getAddress() {
+            return address;
+        }
+
+        @Override
+        public String toString() {
+            return "[" + start + ", " + end + ") " + text;
+        }
+    }
+
+    // the most tokens from an address number to its street type
+    private static final int MAX_STREET_DISTANCE = 6;
+    // the most tokens after the street type that may be part of the address
+    private static final int MAX_TAIL = 8;
+    private static final int MAX_SPAN = MAX_STREET_DISTANCE + MAX_TAIL + 1;
+    private static final int BLOCK_SIZE = 8192;
+    // the most text kept between blocks, which is only reached by runs of enormous tokens
+    private static final int MAX_CARRY = 64 * 1024;
+
+    private static final Set<String> STATES = new HashSet<>(Arrays.asList(
+            "AL", "AK", "AZ", "AR", "CA", "CO", "CT", "DE", "DC", "FL", "GA", "HI",
+            "ID", "IL", "IN", "IA", "KS", "KY", "LA", "ME", "MD", "MA", "MI", "MN",
+            "MS", "MO", "MT", "NE", "NV", "NH", "NJ", "NM", "NY", "NC", "ND", "OH",
+            "OK", "OR", "PA", "PR", "RI", "SC", "SD", "TN", "TX", "UT", "VT", "VA",
+            "WA", "WV", "WI", "WY"));
+
+    private final AddressParser parser;
+    private final boolean clean;
+
+    private AddressExtractor(final Builder builder) {
+        this.parser = builder.parser;
+        this.clean = builder.clean;
+    }
+
+    /**
+     * @return a new builder.
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Find the addresses in a document.
+     *
+     * @param text the document.
+     * @return the addresses found, in document order.
+     * @throws UncheckedIOException if the model hasn't been loaded yet and
+     *                              can't be read.
+     */
+    public List<Match> extract(final CharSequence text) {
+        List<Match> matches = new ArrayList<>();
+        try {
+            extract(new StringReader(text.toString()), matches::add);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return matches;
+    }
+
+    /**
+     * Find the addresses in a document as it's read, reporting each one as
+     * soon as it's found. The input isn't closed.
+     *
+     * @param input    the document.
+     * @param consumer receives each address found, in document order.
+     * @return the number of addresses found.
+     * @throws IOException if the input can't be read or the model can't be
+     *                     read.
+     */
+    public long extract(final Reader input, final Consumer<Match> consumer) throws IOException {
+        parser.load();
+        StringBuilder buffer = new StringBuilder();
+        char[] block = new char[BLOCK_SIZE];
+        // the document offset of the start of the buffer
+        long offset = 0;
+        long found = 0;
+        boolean more = true;
+        while (more) {
+            int fresh = 0;
+            while (fresh < BLOCK_SIZE) {
+                int read = input.read(block, 0, BLOCK_SIZE - fresh);
+                if (read < 0) {
+                    more = false;
+                    break;
+                }
+                buffer.append(block, 0, read);
+                fresh += read;
+            }
+
+            String text = buffer.toString();
+            Tokens tokens = Tokens.of(text);
+            // a span starting before this ends before the last token, which may be cut off
+            int limit = more ? tokens.size() - MAX_SPAN - 1 : tokens.size();
+            int next = 0;
+            while (next < limit) {
+                int last = spanEnd(text, tokens, next);
+                Match match = last < 0 ? null : match(text, tokens, next, last, offset);
+                if (match != null) {
+                    consumer.accept(match);
+                    ++found;
+                    next = last + 1;
+                } else {
+                    ++next;
+                }
+            }
+
+            if (more) {
+                // keep the text from the first token not yet scanned, which tokenizes just as it did in place
+                int keep = next < tokens.size() ? tokens.start(next) : text.length();
+                if (text.length() - keep > MAX_CARRY) {
+                    keep = text.length() - MAX_CARRY;
+                }
+                buffer.delete(0, keep);
+                offset += keep;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * @return the index of the last token of the likely address that starts
+     *         at a token, or -1 if none does.
+     */
+    private static int spanEnd(final String text, final Tokens tokens, final int first) {
+        int size = tokens.size();
+        String token = tokens.get(first);
+        int street = -1;
+        if (startsWithDigit(token)) {
+            int end = Math.min(size, first + 1 + MAX_STREET_DISTANCE);
+            // there's at least a street name before the street type
+            for (int i = first + 1; i < end && !isBreak(text, tokens, i); i++) {
+                if (i > first + 1 && AddressParser.STREET_NAMES_TRIE.matches(word(tokens.get(i)))) {
+                    street = i;
+                    break;
+                }
+            }
+        } else if (first + 2 < size && isPo(word(token)) && "box".equalsIgnoreCase(word(tokens.get(first + 1)))
+                && startsWithDigit(tokens.get(first + 2)) && !isBreak(text, tokens, first + 1)
+                && !isBreak(text, tokens, first + 2)) {
+            street = first + 2;
+        }
+        if (street < 0) {
+            return -1;
+        }
+
+        int last = street;
+        if (street + 1 < size && !isBreak(text, tokens, street + 1)
+                && AddressParser.DIRECTIONS_TRIE.matches(word(tokens.get(street + 1)))) {
+            last = street + 1;
+        }
+        int end = Math.min(size, street + 1 + MAX_TAIL);
+        for (int i = street + 1; i < end && !isBreak(text, tokens, i); i++) {
+            String word = word(tokens.get(i));
+            if (isZipCode(word)) {
+                return i;
+            }
+            if (STATES.contains(word)) {
+                last = i;
+            }
+        }
+        return last;
+    }
+
+    /**
+     * Parse a likely address, and keep it if the model agrees that it is one.
+     */
+    private Match match(final String text, final Tokens tokens, final int first, final int last,
+            final long offset) {
+        int start = tokens.start(first);
+        while (text.charAt(start) == '(') {
+            ++start;
+        }
+        int tokenEnd = tokens.end(last);
+        int end = tokenEnd;
+        while (end > start && isTrailing(text.charAt(end - 1))) {
+            --end;
+        }
+        if (end < tokenEnd && text.charAt(end) == '.' && isAbbreviation(tokens.get(last))) {
+            ++end;
+        }
+
+        String span = text.substring(start, end);
+        Address address = clean ? parser.parseAndCleanAddress(span) : parser.parseAddress(span);
+        if (address.getType() != Address.Type.STREET_ADDRESS && address.getType() != Address.Type.PO_BOX) {
+            return null;
+        }
+        return new Match(offset + start, offset + end, span, address);
+    }
+
+    /**
+     * @return whether a sentence or paragraph ends before a token.
+     */
+    private static boolean isBreak(final String text, final Tokens tokens, final int index) {
+        int previousStart = tokens.start(index - 1);
+        int previousEnd = tokens.end(index - 1);
+        int wordEnd = previousEnd;
+        while (wordEnd > previousStart && isTrailing(text.charAt(wordEnd - 1))) {
+            --wordEnd;
+        }
+
+        int newlines = 0;
+        for (int i = wordEnd; i < tokens.start(index); i++) {
+            if (text.charAt(i) == '\n') {
+                ++newlines;
+            }
+        }
+        if (newlines > 1) {
+            return true;
+        }
+        if (wordEnd == previousStart) {
+            return false;
+        }
+        char last = text.charAt(wordEnd - 1);
+        if (last == '!' || last == '?') {
+            return true;
+        }
+        return wordEnd < previousEnd && text.charAt(wordEnd) == '.' && !isAbbreviation(tokens.get(index - 1));
+    }
+
+    /**
+     * @return whether a token ending in a period is an initial, direction or
+     *         street type rather than the end of a sentence.
+     */
+    private static boolean isAbbreviation(final String token) {
+        String word = word(token);
+        return word.length() == 1 || AddressParser.STREET_NAMES_TRIE.matches(word)
+                || AddressParser.DIRECTIONS_TRIE.matches(word) || isUpperCase(word) && word.length() == 2;
+    }
+
+    /**
+     * @return the token without leading parentheses or trailing punctuation.
+     */
+    private static String word(final String token) {
+        int start = 0;
+        while (start < token.length() && token.charAt(start) == '(') {
+            ++start;
+        }
+        int end = token.length();
+        while (end > start && isTrailing(token.charAt(end - 1))) {
+            --end;
+        }
+        return token.substring(start, end);
+    }
+
+    /**
+     * {@code [.,;)\n]}, the characters a token may end with.
+     */
+    private static boolean isTrailing(final char c) {
+        return c == '.' || c == ',' || c == ';' || c == ')' || c == '\n';
+    }
+
+    private static boolean startsWithDigit(final String token) {
+        int i = 0;
+        while (i < token.length() && token.charAt(i) == '(') {
+            ++i;
+        }
+        return i < token.length() && token.charAt(i) >= '0' && token.charAt(i) <= '9';
+    }
+
+    /**
+     * @return whether the word is a five digit zip code or a ZIP+4 code.
+     */
+    private static boolean isZipCode(final String word) {
+        return (word.length() == 5 || word.length() == 10 && word.charAt(5) == '-') && isDigits(word, 0, 5)
+                && (word.length() == 5 || isDigits(word, 6, 10));
+    }
+
+    private static boolean isDigits(final String word, final int start, final int end) {
+        for (int i = start; i < end; i++) {
+            if (word.charAt(i) < '0' || word.charAt(i) > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isPo(final String word) {
+        return "po".equalsIgnoreCase(word) || "p.o".equalsIgnoreCase(word);
+    }
+
+    private static boolean isUpperCase(final String word) {
+        for (int i = 0; i < word.length(); i++) {
+            char c = word.charAt(i);
+            if (c < 'A' || c > 'Z') {
+                return false;
+            }
+        }
+        return !word.isEmpty();
+    }
+
+    public static final class Builder {
+        private AddressParser parser = AddressParser.getDefault();
+        private boolean clean = true;
+
+        private Builder() {
+        }
+
+        /**
+         * @param parser the parser to use. Defaults to
+         *               {@link AddressParser#getDefault()}.
+         * @return this builder.
+         */
+        public Builder parser(final AddressParser parser) {
+            this.parser = Objects.requireNonNull(parser, "parser");
+            return this;
+        }
+
+        /**
+         * @param clean whether to merge and clean fields as
+         *              {@link AddressParser#parseAndCleanAddress(String)} does,
+         *              rather than return one field per token. Defaults to
+         *              {@code true}.
+         * @return this builder.
+         */
+        public Builder clean(final boolean clean) {
+            this.clean = clean;
+            return this;
+        }
+
+        /**
+         * @return a new extractor.
+         */
+        public AddressExtractor build() {
+            return new AddressExtractor(this);
+        }
+    }
+
+}
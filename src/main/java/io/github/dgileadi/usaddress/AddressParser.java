@@ -1,48 +1,51 @@
 package io.github.dgileadi.usaddress;
 
-import java.io.File;
+import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
-import java.nio.file.StandardCopyOption;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-
-import com.gengoai.jcrfsuite.CrfTagger;
-import com.gengoai.jcrfsuite.util.Pair;
-
-import third_party.org.chokkan.crfsuite.Attribute;
-import third_party.org.chokkan.crfsuite.Item;
-import third_party.org.chokkan.crfsuite.ItemSequence;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * Parse US addresses into fields and detect the type of each field.
+ * <p>
+ * The static {@link #parse(String)} and {@link #parseAndClean(String)} methods
+ * use a shared parser with the bundled model. To use another model or other
+ * settings, create a parser with {@link #builder()}. Parsers are thread-safe.
  */
 public final class AddressParser {
-    private static final Pattern AMPERSAND_PATTERN = Pattern.compile("(&#38;)|(&amp;)");
-    private static final Pattern TOKEN_PATTERN = Pattern.compile("\\(*\\b[^\\s,;#&\\(\\)]+[.,;\\)\\n]*|[#&]",
-            Pattern.UNICODE_CHARACTER_CLASS);
-    private static final Pattern CLEAN_TOKEN_PATTERN = Pattern.compile("(^[\\W]*)|([^.\\w]*$)",
-            Pattern.UNICODE_CHARACTER_CLASS);
-    private static final Pattern DIGITS_PATTERN = Pattern.compile("\\d+");
-    private static final Pattern TOKEN_ENDS_IN_PUNC_PATTERN = Pattern.compile(".+[^.\\w]",
-            Pattern.UNICODE_CHARACTER_CLASS);
-    private static final Pattern VOWELS_PATTERN = Pattern.compile("[aeiou]", Pattern.CASE_INSENSITIVE);
-    private static final Pattern TRAILING_ZEROS_PATTERN = Pattern.compile("(0+)$");
-
-    private static final Set<String> DIRECTIONS = new HashSet<>(Arrays.asList(
+    private static final int ADDRESS_NUMBER = Address.FieldType.ADDRESS_NUMBER.ordinal();
+    private static final int STREET_NAME = Address.FieldType.STREET_NAME.ordinal();
+    private static final int SECOND_STREET_NAME = Address.FieldType.SECOND_STREET_NAME.ordinal();
+    private static final int INTERSECTION_SEPARATOR = Address.FieldType.INTERSECTION_SEPARATOR.ordinal();
+    private static final int USPS_BOX_ID = Address.FieldType.USPS_BOX_ID.ordinal();
+
+    // package protected to support testing
+    static final Set<String> DIRECTIONS = new HashSet<>(Arrays.asList(
             "n", "s", "e", "w",
             "ne", "nw", "se", "sw",
             "north", "south", "east", "west",
             "northeast", "northwest", "southeast", "southwest"));
 
-    private static final Set<String> STREET_NAMES = new HashSet<>(Arrays.asList(
+    static final Set<String> STREET_NAMES = new HashSet<>(Arrays.asList(
             "allee", "alley", "ally", "aly", "anex", "annex", "annx", "anx",
             "arc", "arcade", "av", "ave", "aven", "avenu", "avenue", "avn", "avnue",
             "bayoo", "bayou", "bch", "beach", "bend", "bg", "bgs", "bl", "blf",
@@ -115,21 +118,74 @@ public final class AddressParser {
             "walks", "wall", "way", "ways", "well", "wells", "wl", "wls", "wy", "xc",
             "xg", "xing", "xrd", "xrds"));
 
+    // for testing spans of longer text without copying them out; a token's
+    // features already need its lowercased abbreviation, so they use the sets
+    static final WordTrie DIRECTIONS_TRIE = new WordTrie(DIRECTIONS);
+    static final WordTrie STREET_NAMES_TRIE = new WordTrie(STREET_NAMES);
+
     private static final String MODEL_FILE = "usaddr.crfsuite";
-    private static CrfTagger tagger;
+    private static final String WARM_UP_FILE = "warmup-addresses.txt";
+    private static final Duration DEFAULT_WARM_UP_TIME = Duration.ofSeconds(10);
+    private static final long WARM_UP_ROUND_NANOS = 20_000_000;
+    private static final int MIN_WARM_UP_ROUNDS = 10;
+    // the rounds in a row whose time per address is within WARM_UP_TOLERANCE of the one before
+    private static final int STEADY_WARM_UP_ROUNDS = 3;
+    private static final double WARM_UP_TOLERANCE = 0.1;
 
-    static {
-        try {
-            InputStream input = Thread.currentThread().getContextClassLoader().getResourceAsStream(MODEL_FILE);
-            File tempFile = File.createTempFile(MODEL_FILE, null);
-            Files.copy(input, tempFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
-            tagger = new CrfTagger(tempFile.getAbsolutePath());
-        } catch (IOException e) {
-            throw new RuntimeException("Error copying usaddr.crfsuite to a temporary file", e);
-        }
+    // keeps the JIT compiler from skipping warm-up parses whose results are unused
+    private static volatile long warmUpSink;
+
+    /**
+     * The system property that sets how many taggers are kept for reuse, which
+     * should be about the number of threads that parse at once. Defaults to the
+     * number of available processors. {@link Builder#taggerPoolSize(int)}
+     * overrides it for a single parser.
+     */
+    public static final String TAGGER_POOL_SIZE_PROPERTY = "io.github.dgileadi.usaddress.taggerPoolSize";
+
+    private final ModelSource source;
+    private final String initialVersion;
+    private final int taggerPoolSize;
+    private final int resultCacheSize;
+    private final int tokenCacheSize;
+    private final ParseListener listener;
+    private final BoundedExecutor asyncExecutor;
+    // not a monitor, so virtual threads waiting for the model aren't pinned
+    private final ReentrantLock loadLock = new ReentrantLock();
+    private volatile ParserModel model;
+    private volatile boolean warm;
+
+    private AddressParser(final Builder builder) {
+        this.source = builder.source;
+        this.initialVersion = builder.modelVersion != null ? builder.modelVersion : source.toString();
+        this.taggerPoolSize = builder.taggerPoolSize;
+        this.resultCacheSize = builder.resultCacheSize;
+        this.tokenCacheSize = builder.tokenCacheSize;
+        this.listener = builder.listener;
+        this.asyncExecutor = new BoundedExecutor(builder.asyncExecutor,
+                builder.asyncConcurrency > 0 ? builder.asyncConcurrency : taggerPoolSize);
     }
 
-    private AddressParser() {
+    /**
+     * Create a builder for a parser with its own model or settings. Most callers
+     * can use the static methods instead, which share a default parser.
+     *
+     * @return a new builder.
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Get the parser behind the static {@link #parse(String)} and
+     * {@link #parseAndClean(String)} methods. It uses the bundled
+     * {@code usaddr.crfsuite} model, which is read the first time an address is
+     * parsed.
+     *
+     * @return the default parser.
+     */
+    public static AddressParser getDefault() {
+        return DefaultHolder.INSTANCE;
     }
 
     /**
@@ -138,75 +194,595 @@ public final class AddressParser {
      *
      * @param address the address string to parse.
      * @return the parsed address.
+     * @throws UncheckedIOException if the default model can't be read.
      */
     public static Address parseAndClean(final String address) {
-        List<Address.Field> fields = new ArrayList<>();
+        return getDefault().parseAndCleanAddress(address);
+    }
 
-        Address.FieldType lastType = null;
-        boolean isIntersection = false;
+    /**
+     * Split an address string into fields, and assign a type to each field.
+     *
+     * @param address the address string to parse.
+     * @return the parsed address.
+     * @throws UncheckedIOException if the default model can't be read.
+     */
+    public static Address parse(final String address) {
+        return getDefault().parseAddress(address);
+    }
 
-        for (Address.Field field : parseFields(address)) {
-            String token = field.getValue();
-            Address.FieldType type = field.getType();
+    /**
+     * Parse a batch of addresses, parsing each distinct address only once, like
+     * {@link #parseAndClean(String)}.
+     *
+     * @param addresses the address strings to parse.
+     * @return the parsed addresses in the same order.
+     * @see #parseAndCleanAddresses(Collection)
+     */
+    public static BatchResult parseAllAndClean(final Collection<String> addresses) {
+        return getDefault().parseAndCleanAddresses(addresses);
+    }
 
-            if (type == Address.FieldType.INTERSECTION_SEPARATOR) {
-                isIntersection = true;
-            } else if (type == Address.FieldType.STREET_NAME && isIntersection) {
-                field = new Address.Field(field.getValue(), Address.FieldType.SECOND_STREET_NAME);
-            }
+    /**
+     * Parse a batch of addresses, parsing each distinct address only once, like
+     * {@link #parse(String)}.
+     *
+     * @param addresses the address strings to parse.
+     * @return the parsed addresses in the same order.
+     * @see #parseAddresses(Collection)
+     */
+    public static BatchResult parseAll(final Collection<String> addresses) {
+        return getDefault().parseAddresses(addresses);
+    }
 
-            if (type == lastType) {
-                fields.get(fields.size() - 1).appendValue(token);
-            } else {
-                fields.add(field);
+    /**
+     * Parse an address on the default parser's executor, like
+     * {@link #parseAndClean(String)}.
+     *
+     * @param address the address string to parse.
+     * @return the parsed address, or an exception if it can't be parsed.
+     * @see #parseAndCleanAddressAsync(String)
+     */
+    public static CompletableFuture<Address> parseAndCleanAsync(final String address) {
+        return getDefault().parseAndCleanAddressAsync(address);
+    }
+
+    /**
+     * Parse an address on the default parser's executor, like
+     * {@link #parse(String)}.
+     *
+     * @param address the address string to parse.
+     * @return the parsed address, or an exception if it can't be parsed.
+     * @see #parseAddressAsync(String)
+     */
+    public static CompletableFuture<Address> parseAsync(final String address) {
+        return getDefault().parseAddressAsync(address);
+    }
+
+    /**
+     * Read the model now rather than when the first address is parsed, for
+     * instance to fail fast at startup. Does nothing if it's already loaded.
+     *
+     * @return this parser.
+     * @throws IOException if the model can't be read.
+     */
+    public AddressParser load() throws IOException {
+        ParserModel loaded = model;
+        if (loaded == null) {
+            loadLock.lock();
+            try {
+                loaded = model;
+                if (loaded == null) {
+                    model = new ParserModel(initialVersion, source.load(), taggerPoolSize, resultCacheSize,
+                            tokenCacheSize);
+                }
+            } finally {
+                loadLock.unlock();
             }
+        }
+        return this;
+    }
 
-            lastType = type;
+    /**
+     * @return whether the model has been read.
+     */
+    public boolean isLoaded() {
+        return model != null;
+    }
+
+    /**
+     * Parse a bundled set of typical addresses over and over until the time
+     * per address stops improving, so that parsing code is compiled before
+     * real addresses arrive. Call it at startup, before taking traffic. See
+     * {@link #warmUp(Collection, Duration)}.
+     *
+     * @return how the warm-up went.
+     * @throws IOException if the model or the bundled addresses can't be read.
+     */
+    public WarmUpResult warmUp() throws IOException {
+        return warmUp(readWarmUpAddresses(), DEFAULT_WARM_UP_TIME);
+    }
+
+    /**
+     * Parse a set of addresses over and over until the time per address stops
+     * improving, so that parsing code is compiled before real addresses arrive.
+     * Loads the model first if it isn't loaded yet.
+     * <p>
+     * The first pass over the set is timed as the cold speed. Then each round
+     * parses the set as many times as fit in 20 ms. Warm-up stops once at least
+     * ten rounds have run and the last three were each within 10% of the one
+     * before, or when the time runs out. Either way the parser is
+     * {@link #isWarm() warm} afterward.
+     * <p>
+     * Warm-up parses skip the result cache, which would otherwise answer every
+     * round after the first, and aren't reported to the {@link ParseListener}.
+     * The token cache is used, just as it is for real addresses.
+     *
+     * @param addresses the addresses to parse, which should look like the ones
+     *                  the parser will see.
+     * @param maxTime   the longest to keep at it.
+     * @return how the warm-up went.
+     * @throws IOException if the model can't be read.
+     */
+    public WarmUpResult warmUp(final Collection<String> addresses, final Duration maxTime) throws IOException {
+        if (addresses.isEmpty()) {
+            throw new IllegalArgumentException("No addresses to warm up with");
         }
+        WarmUpResult result = warmUp(getModel(), addresses, maxTime);
+        warm = true;
+        return result;
+    }
+
+    private static WarmUpResult warmUp(final ParserModel loaded, final Collection<String> addresses,
+            final Duration maxTime) {
+        List<String> set = new ArrayList<>(addresses);
+        long start = System.nanoTime();
+        long deadline = start + maxTime.toNanos();
+        long sink = 0;
 
-        for (Address.Field field : fields) {
-            field.cleanValue();
+        for (String address : set) {
+            sink += parseUncached(loaded, address);
         }
+        long coldNanos = (System.nanoTime() - start) / set.size();
+        long parsed = set.size();
 
-        return new Address(detectType(fields), fields);
+        int rounds = 0;
+        int steady = 0;
+        long previous = coldNanos;
+        boolean stable = false;
+        while (!stable && System.nanoTime() - deadline < 0) {
+            long roundStart = System.nanoTime();
+            long roundParsed = 0;
+            do {
+                for (String address : set) {
+                    sink += parseUncached(loaded, address);
+                }
+                roundParsed += set.size();
+            } while (System.nanoTime() - roundStart < WARM_UP_ROUND_NANOS);
+            long nanos = (System.nanoTime() - roundStart) / roundParsed;
+            parsed += roundParsed;
+            ++rounds;
+
+            steady = Math.abs(nanos - previous) <= previous * WARM_UP_TOLERANCE ? steady + 1 : 0;
+            previous = nanos;
+            stable = rounds >= MIN_WARM_UP_ROUNDS && steady >= STEADY_WARM_UP_ROUNDS;
+        }
+
+        warmUpSink = sink;
+        return new WarmUpResult(rounds, parsed, coldNanos, previous, System.nanoTime() - start, stable);
+    }
+
+    /**
+     * @return whether {@link #warmUp()} has finished, for instance to tell a
+     *         readiness probe that the parser is at full speed.
+     */
+    public boolean isWarm() {
+        return warm;
+    }
+
+    /**
+     * @return the version of the model that parses addresses now, or that will
+     *         once it's loaded.
+     */
+    public String getModelVersion() {
+        ParserModel loaded = model;
+        return loaded == null ? initialVersion : loaded.getVersion();
+    }
+
+    /**
+     * Load a model file, warm it up and swap it in for the current model,
+     * without stopping parsing. Until the swap, addresses are parsed with the
+     * current model as usual. Afterward new parses use the new one, while
+     * parses already in progress, batches already started and existing
+     * {@link ParseSession sessions} finish with the old one, which is freed
+     * once nothing uses it.
+     * <p>
+     * The new model gets its own result and token caches, since labels and
+     * feature ids differ between models; warming it up fills its token cache
+     * with common tokens. Every address reports the version of the model that
+     * parsed it in {@link Address#getModelVersion()}.
+     *
+     * @param path    the path of a CRFsuite model file. It's read into the
+     *                heap, even if this parser was built with
+     *                {@link Builder#sharedModelPath(Path)}, and the new model
+     *                isn't shared with other parsers. The file may be replaced
+     *                afterward.
+     * @param version the name of the new model's version.
+     * @return the version of the model that was replaced.
+     * @throws IOException if the file can't be read or isn't a valid model, in
+     *                     which case the current model stays.
+     * @see #swapModelAsync(Path, String)
+     */
+    public String swapModel(final Path path, final String version) throws IOException {
+        Objects.requireNonNull(path, "path");
+        Objects.requireNonNull(version, "version");
+        ParserModel next = new ParserModel(version, ByteBuffer.wrap(Files.readAllBytes(path)), taggerPoolSize,
+                resultCacheSize, tokenCacheSize);
+        warmUp(next, readWarmUpAddresses(), DEFAULT_WARM_UP_TIME);
+
+        loadLock.lock();
+        try {
+            ParserModel previous = model;
+            model = next;
+            return previous == null ? initialVersion : previous.getVersion();
+        } finally {
+            loadLock.unlock();
+        }
+    }
+
+    /**
+     * Load, warm up and swap in a model file like
+     * {@link #swapModel(Path, String)}, on a background thread.
+     *
+     * @param path    the path of a CRFsuite model file.
+     * @param version the name of the new model's version.
+     * @return the version of the model that was replaced, or an
+     *         {@link UncheckedIOException} if the file can't be read or isn't
+     *         a valid model.
+     */
+    public CompletableFuture<String> swapModelAsync(final Path path, final String version) {
+        Objects.requireNonNull(path, "path");
+        Objects.requireNonNull(version, "version");
+        CompletableFuture<String> result = new CompletableFuture<>();
+        Thread thread = new Thread(() -> {
+            try {
+                result.complete(swapModel(path, version));
+            } catch (IOException e) {
+                result.completeExceptionally(new UncheckedIOException("Error reading " + path, e));
+            } catch (RuntimeException | Error e) {
+                result.completeExceptionally(e);
+            }
+        }, "usaddress-model-swap");
+        thread.setDaemon(true);
+        thread.start();
+        return result;
+    }
+
+    /**
+     * Run every step of parsing an address but the result cache.
+     *
+     * @return a number that depends on the results.
+     */
+    private static int parseUncached(final ParserModel model, final String address) {
+        Tokens tokens = Tokens.of(address);
+        int[] tags = model.tag(tokens2features(model, tokens));
+        return clean(model, tokens, tags).getFields().size() + fields(model, tokens, tags).getFields().size();
+    }
+
+    private static List<String> readWarmUpAddresses() throws IOException {
+        try (InputStream input = AddressParser.class.getClassLoader().getResourceAsStream(WARM_UP_FILE)) {
+            if (input == null) {
+                throw new FileNotFoundException("Missing resource " + WARM_UP_FILE);
+            }
+            List<String> addresses = new ArrayList<>();
+            for (String line : new String(input.readAllBytes(), StandardCharsets.UTF_8).split("\n")) {
+                if (!line.isBlank()) {
+                    addresses.add(line);
+                }
+            }
+            return addresses;
+        }
+    }
+
+    /**
+     * @return the statistics of the result cache set up with
+     *         {@link Builder#resultCacheSize(int)}. They're all zero if results
+     *         aren't cached.
+     */
+    public CacheStats getResultCacheStats() {
+        ParserModel loaded = model;
+        LruCache<String, int[]> cache = loaded == null ? null : loaded.getResultCache();
+        return cache == null ? new CacheStats(0, 0, 0, 0, resultCacheSize) : cache.stats();
+    }
+
+    /**
+     * @return the statistics of the token feature cache set up with
+     *         {@link Builder#tokenCacheSize(int)}. They're all zero if token
+     *         features aren't cached.
+     */
+    public CacheStats getTokenCacheStats() {
+        ParserModel loaded = model;
+        LruCache<String, int[]> cache = loaded == null ? null : loaded.getTokenCache();
+        return cache == null ? new CacheStats(0, 0, 0, 0, tokenCacheSize) : cache.stats();
     }
 
     /**
      * Split an address string into fields, and assign a type to each field.
+     * Also merge consecutive fields and strip commas.
      *
      * @param address the address string to parse.
      * @return the parsed address.
+     * @throws UncheckedIOException if the model hasn't been loaded yet and
+     *                              can't be read.
      */
-    public static Address parse(final String address) {
-        List<Address.Field> fields = parseFields(address);
-        return new Address(detectType(fields), fields);
+    public Address parseAndCleanAddress(final String address) {
+        return parse(address, true, null);
+    }
+
+    /**
+     * Split an address string into fields, and assign a type to each field.
+     *
+     * @param address the address string to parse.
+     * @return the parsed address.
+     * @throws UncheckedIOException if the model hasn't been loaded yet and
+     *                              can't be read.
+     */
+    public Address parseAddress(final String address) {
+        return parse(address, false, null);
+    }
+
+    /**
+     * Parse a batch of addresses like {@link #parseAndCleanAddress(String)}.
+     * Addresses that differ only in case, spacing or ampersand encoding get the
+     * same labels, so only the first of them is tagged and the rest reuse its
+     * labels. Each address still keeps its own text.
+     *
+     * @param addresses the address strings to parse.
+     * @return the parsed addresses in the same order, and how many were
+     *         duplicates.
+     * @throws UncheckedIOException if the model hasn't been loaded yet and
+     *                              can't be read.
+     */
+    public BatchResult parseAndCleanAddresses(final Collection<String> addresses) {
+        return parseAll(addresses, true);
+    }
+
+    /**
+     * Parse a batch of addresses like {@link #parseAddress(String)}. Addresses
+     * that differ only in case, spacing or ampersand encoding get the same
+     * labels, so only the first of them is tagged and the rest reuse its
+     * labels. Each address still keeps its own text.
+     *
+     * @param addresses the address strings to parse.
+     * @return the parsed addresses in the same order, and how many were
+     *         duplicates.
+     * @throws UncheckedIOException if the model hasn't been loaded yet and
+     *                              can't be read.
+     */
+    public BatchResult parseAddresses(final Collection<String> addresses) {
+        return parseAll(addresses, false);
+    }
+
+    private BatchResult parseAll(final Collection<String> addresses, final boolean clean) {
+        BatchTags batch = new BatchTags();
+        List<Address> parsed = new ArrayList<>(addresses.size());
+        for (String address : addresses) {
+            parsed.add(parse(address, clean, batch));
+        }
+        return new BatchResult(parsed, batch.tags.size());
+    }
+
+    /**
+     * Parse an address on the executor set with
+     * {@link Builder#asyncExecutor(Executor)}, like
+     * {@link #parseAndCleanAddress(String)}. This never blocks the calling
+     * thread, and at most {@link Builder#asyncConcurrency(int)} addresses are
+     * parsed at once; the rest wait in a queue.
+     *
+     * @param address the address string to parse.
+     * @return the parsed address, or an exception if it can't be parsed or
+     *         the executor rejects it.
+     */
+    public CompletableFuture<Address> parseAndCleanAddressAsync(final String address) {
+        return parseAsync(address, true);
     }
 
-    private static List<Address.Field> parseFields(final String address) {
-        List<String> tokens = tokenize(address);
-        ItemSequence features = tokens2features(tokens);
+    /**
+     * Parse an address on the executor set with
+     * {@link Builder#asyncExecutor(Executor)}, like
+     * {@link #parseAddress(String)}. This never blocks the calling thread, and
+     * at most {@link Builder#asyncConcurrency(int)} addresses are parsed at
+     * once; the rest wait in a queue.
+     *
+     * @param address the address string to parse.
+     * @return the parsed address, or an exception if it can't be parsed or
+     *         the executor rejects it.
+     */
+    public CompletableFuture<Address> parseAddressAsync(final String address) {
+        return parseAsync(address, false);
+    }
+
+    private CompletableFuture<Address> parseAsync(final String address, final boolean clean) {
+        return asyncExecutor.supply(() -> parse(address, clean, null));
+    }
+
+    /**
+     * Start a session for parsing an address as it's typed. Each parse in the
+     * session only redoes the work for the tokens that changed since the last
+     * one. See {@link ParseSession}.
+     *
+     * @return a new session. It isn't thread-safe.
+     * @throws UncheckedIOException if the model hasn't been loaded yet and
+     *                              can't be read.
+     */
+    public ParseSession newSession() {
+        return new ParseSession(getModel(), listener);
+    }
+
+    /**
+     * @param batch the labels of the addresses parsed so far in a batch, or
+     *              {@code null} if this address isn't part of a batch.
+     */
+    private Address parse(final String address, final boolean clean, final BatchTags batch) {
+        ParseListener listener = this.listener;
+        if (listener == null) {
+            ParserModel model = batch == null ? getModel() : batch.model(this);
+            Tokens tokens = Tokens.of(address);
+            int[] tags = tag(model, tokens, batch == null ? null : batch.tags, null);
+            return clean ? clean(model, tokens, tags) : fields(model, tokens, tags);
+        }
+
+        long start = System.nanoTime();
+        try {
+            ParserModel model = batch == null ? getModel() : batch.model(this);
+            long tokenizeStart = System.nanoTime();
+            Tokens tokens = Tokens.of(address);
+            listener.stageCompleted(ParseListener.Stage.TOKENIZE, System.nanoTime() - tokenizeStart);
+            int[] tags = tag(model, tokens, batch == null ? null : batch.tags, listener);
+            Address parsed;
+            if (clean) {
+                long cleanStart = System.nanoTime();
+                parsed = clean(model, tokens, tags);
+                listener.stageCompleted(ParseListener.Stage.CLEAN, System.nanoTime() - cleanStart);
+            } else {
+                parsed = fields(model, tokens, tags);
+            }
+            listener.parseCompleted(tokens.size(), System.nanoTime() - start);
+            return parsed;
+        } catch (RuntimeException e) {
+            listener.parseFailed(e);
+            throw e;
+        }
+    }
+
+    /**
+     * Make each token a field.
+     */
+    static Address fields(final ParserModel model, final Tokens tokens, final int[] tags) {
+        byte[] fieldTypes = new byte[tags.length];
+        for (int i = 0; i < tags.length; i++) {
+            fieldTypes[i] = model.getFieldType(tags[i]);
+        }
+        return new Address(detectType(Address.typeMask(fieldTypes)), tokens.getAddress(), tokens.offsets(),
+                fieldTypes, null, model.getVersion());
+    }
+
+    /**
+     * Merge consecutive tokens of the same type into fields, and tell the
+     * street names of an intersection apart.
+     */
+    static Address clean(final ParserModel model, final Tokens tokens, final int[] tags) {
+        byte[] fieldTypes = new byte[tags.length];
+        int[] fieldEnds = new int[tags.length];
+        int count = 0;
+
+        int lastType = -1;
+        boolean isIntersection = false;
+
+        for (int i = 0; i < tags.length; i++) {
+            int type = model.getFieldType(tags[i]);
+
+            if (type == INTERSECTION_SEPARATOR) {
+                isIntersection = true;
+            }
+
+            if (type != lastType) {
+                fieldTypes[count++] = (byte) (type == STREET_NAME && isIntersection ? SECOND_STREET_NAME : type);
+            }
+            fieldEnds[count - 1] = i + 1;
+
+            lastType = type;
+        }
+
+        fieldTypes = Arrays.copyOf(fieldTypes, count);
+        return new Address(detectType(Address.typeMask(fieldTypes)), tokens.getAddress(), tokens.offsets(),
+                fieldTypes, Arrays.copyOf(fieldEnds, count), model.getVersion());
+    }
+
+    private static int[] tag(final ParserModel model, final List<String> tokens, final Map<String, int[]> batchTags,
+            final ParseListener listener) {
+        if (batchTags == null) {
+            return computeTags(model, tokens, null, listener);
+        }
+        String key = normalize(tokens);
+        int[] tags = batchTags.get(key);
+        if (tags == null) {
+            tags = computeTags(model, tokens, key, listener);
+            batchTags.put(key, tags);
+        }
+        return tags;
+    }
+
+    /**
+     * @param key the normalized address, or {@code null} to normalize it only
+     *            if it's needed.
+     */
+    private static int[] computeTags(final ParserModel model, final List<String> tokens, final String key,
+            final ParseListener listener) {
+        LruCache<String, int[]> cache = model.getResultCache();
+        String cacheKey = key;
+        if (cache != null) {
+            if (cacheKey == null) {
+                cacheKey = normalize(tokens);
+            }
+            int[] tags = cache.get(cacheKey);
+            if (tags != null) {
+                return tags;
+            }
+        }
+
+        long start = listener == null ? 0 : System.nanoTime();
+        int[][] features = tokens2features(model, tokens);
         // Uncomment this line to print the features sent to the tagger:
-        // printItemSequence(features);
-        List<Pair<String, Double>> tags = tagger.tag(features);
+        // printFeatures(model.getDictionary(), features);
+        long tagStart = 0;
+        if (listener != null) {
+            tagStart = System.nanoTime();
+            listener.stageCompleted(ParseListener.Stage.FEATURES, tagStart - start);
+        }
+        int[] tags = model.tag(features);
+        if (listener != null) {
+            listener.stageCompleted(ParseListener.Stage.TAG, System.nanoTime() - tagStart);
+        }
 
-        List<Address.Field> result = new ArrayList<>();
-        for (int i = 0; i < tokens.size(); i++) {
-            result.add(new Address.Field(tokens.get(i), tags.get(i).getFirst()));
+        if (cache != null) {
+            cache.put(cacheKey, tags);
         }
-        return result;
+        return tags;
+    }
+
+    /**
+     * Reduce tokens to a key that's the same for every address that gets the
+     * same labels. Token features only look at lowercase text, so addresses that
+     * differ only in case, spacing or ampersand encoding share a key.
+     */
+    // package protected to support testing
+    static String normalize(final List<String> tokens) {
+        return String.join(" ", tokens).toLowerCase(Locale.US);
+    }
+
+    ParserModel getModel() {
+        ParserModel loaded = model;
+        if (loaded == null) {
+            try {
+                load();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Error reading " + source, e);
+            }
+            loaded = model;
+        }
+        return loaded;
     }
 
-    private static Address.Type detectType(final List<Address.Field> fields) {
-        boolean hasAddressNumber = fields.stream()
-                .anyMatch(field -> field.getType() == Address.FieldType.ADDRESS_NUMBER);
-        boolean isIntersection = fields.stream()
-                .anyMatch(field -> field.getType() == Address.FieldType.INTERSECTION_SEPARATOR);
+    private static Address.Type detectType(final long typeMask) {
+        boolean hasAddressNumber = (typeMask & (1L << ADDRESS_NUMBER)) != 0;
+        boolean isIntersection = (typeMask & (1L << INTERSECTION_SEPARATOR)) != 0;
 
         if (hasAddressNumber && !isIntersection) {
             return Address.Type.STREET_ADDRESS;
         } else if (isIntersection && !hasAddressNumber) {
             return Address.Type.INTERSECTION;
-        } else if (fields.stream().anyMatch(field -> field.getType() == Address.FieldType.USPS_BOX_ID)) {
+        } else if ((typeMask & (1L << USPS_BOX_ID)) != 0) {
             return Address.Type.PO_BOX;
         } else {
             return Address.Type.AMBIGUOUS;
@@ -214,132 +790,528 @@ public final class AddressParser {
     }
 
     // package protected to support testing
-    static List<String> tokenize(String address) {
-        address = AMPERSAND_PATTERN.matcher(address).replaceAll("&");
-        Matcher matcher = TOKEN_PATTERN.matcher(address);
-        List<String> tokens = new ArrayList<>();
-        while (matcher.find()) {
-            tokens.add(matcher.group());
-        }
-        return tokens;
+    static List<String> tokenize(final String address) {
+        return Tokens.of(address);
     }
 
-    private static Item tokenFeatures(final String token) {
+    // package protected to support testing
+    static int[] tokenFeatures(final FeatureDictionary dictionary, final String token) {
         String cleanToken;
         if ("&".equals(token) || "#".equals(token) || "½".equals(token)) {
             cleanToken = token;
         } else {
-            cleanToken = CLEAN_TOKEN_PATTERN.matcher(token).replaceAll("");
+            cleanToken = cleanToken(token);
         }
 
         String tokenAbbrev = cleanToken.toLowerCase(Locale.US).replace(".", "");
-        Item features = new Item();
-        features.add(new Attribute("abbrev", cleanToken.endsWith(".") ? 1 : 0));
-        features.add(new Attribute("digits:" + digits(cleanToken), 1));
-        if (DIGITS_PATTERN.matcher(tokenAbbrev).matches()) {
-            features.add(new Attribute("word", 0));
-            features.add(new Attribute("trailing.zeros:" + trailingZeros(tokenAbbrev), 1));
-            features.add(new Attribute("length:d:" + tokenAbbrev.length(), 1));
-        } else {
-            features.add(new Attribute("word:" + tokenAbbrev, 1));
-            features.add(new Attribute("trailing.zeros", 0));
-            features.add(new Attribute("length:w:" + tokenAbbrev.length(), 1));
+        // only features with a value of 1 are kept, since the rest add nothing
+        int[] features = new int[8];
+        int size = 0;
+        if (cleanToken.endsWith(".")) {
+            size = add(features, size, dictionary.abbrev());
         }
-        if (TOKEN_ENDS_IN_PUNC_PATTERN.matcher(token).matches()) {
-            features.add(new Attribute("endsinpunc:" + token.charAt(token.length() - 1), 1));
+        size = add(features, size, dictionary.digits(digits(cleanToken)));
+        if (digits(tokenAbbrev) == FeatureDictionary.ALL_DIGITS) {
+            size = add(features, size, dictionary.trailingZeros(trailingZeros(tokenAbbrev)));
+            size = add(features, size, dictionary.digitLength(tokenAbbrev.length()));
         } else {
-            features.add(new Attribute("endsinpunc", 0));
+            size = add(features, size, dictionary.word(tokenAbbrev));
+            size = add(features, size, dictionary.wordLength(tokenAbbrev.length()));
+        }
+        if (endsInPunc(token)) {
+            size = add(features, size, dictionary.endsInPunc(token.charAt(token.length() - 1)));
+        }
+        if (DIRECTIONS.contains(tokenAbbrev)) {
+            size = add(features, size, dictionary.directional());
+        }
+        if (STREET_NAMES.contains(tokenAbbrev)) {
+            size = add(features, size, dictionary.streetName());
+        }
+        if (hasVowels(tokenAbbrev)) {
+            size = add(features, size, dictionary.hasVowels());
         }
-        features.add(new Attribute("directional", DIRECTIONS.contains(tokenAbbrev) ? 1 : 0));
-        features.add(new Attribute("street_name", STREET_NAMES.contains(tokenAbbrev) ? 1 : 0));
-        features.add(new Attribute("has.vowels", VOWELS_PATTERN.matcher(tokenAbbrev.substring(1)).find() ? 1 : 0));
 
-        return features;
+        return Arrays.copyOf(features, size);
     }
 
-    private static ItemSequence tokens2features(final List<String> address) {
-        ItemSequence featureSequence = new ItemSequence();
-        Item previousFeatures = null;
+    private static int add(final int[] features, final int size, final int feature) {
+        if (feature < 0) {
+            return size;
+        }
+        features[size] = feature;
+        return size + 1;
+    }
 
-        int i = 0;
-        for (String token : address) {
-            Item features = tokenFeatures(token);
-            Item currentFeatures = copy(features);
+    // package protected to support benchmarking
+    static int[][] tokens2features(final ParserModel model, final List<String> address) {
+        int[][] features = new int[address.size()][];
+        for (int i = 0; i < features.length; i++) {
+            features[i] = tokenFeatures(model, address.get(i));
+        }
+        return features;
+    }
 
-            if (i > 0) {
-                addAttributes("previous", previousFeatures, features);
-                if (i == 1) {
-                    features.add(new Attribute("previous:address.start", 1));
-                }
-                addAttributes("next", currentFeatures, featureSequence.get(i - 1));
+    /**
+     * Get a token's features from the model's token cache, or compute them.
+     */
+    static int[] tokenFeatures(final ParserModel model, final String token) {
+        LruCache<String, int[]> cache = model.getTokenCache();
+        int[] features = cache == null ? null : cache.get(token);
+        if (features == null) {
+            features = tokenFeatures(model.getDictionary(), token);
+            if (cache != null) {
+                cache.put(token, features);
             }
+        }
+        return features;
+    }
 
-            featureSequence.add(features);
+    /*
+     * The methods below scan tokens by hand rather than with regular
+     * expressions, since every token of every parse goes through them and a
+     * Matcher allocates on each use. Each one notes the expression it stands
+     * in for.
+     */
 
-            previousFeatures = currentFeatures;
-            ++i;
+    /**
+     * Strip {@code (^\W*)|([^.\w]*$)}, with Unicode character classes.
+     */
+    private static String cleanToken(final String token) {
+        int start = 0;
+        while (start < token.length()) {
+            int c = token.codePointAt(start);
+            if (Tokens.isWord(c)) {
+                break;
+            }
+            start += Character.charCount(c);
         }
-
-        featureSequence.get(0).add(new Attribute("address.start", 1));
-        featureSequence.get((int) featureSequence.size() - 1).add(new Attribute("address.end", 1));
-        if (featureSequence.size() > 1) {
-            featureSequence.get((int) featureSequence.size() - 2).add(new Attribute("next:address.end", 1));
+        int end = token.length();
+        while (end > start) {
+            int c = token.codePointBefore(end);
+            if (c == '.' || Tokens.isWord(c)) {
+                break;
+            }
+            end -= Character.charCount(c);
         }
-
-        return featureSequence;
+        if (start == 0 && end == 2 && Character.isSupplementaryCodePoint(token.codePointAt(0))) {
+            // after the empty match at the start, replaceAll resumes in the middle
+            // of the surrogate pair and strips the unpaired low surrogate too
+            end = 1;
+        }
+        return token.substring(start, end);
     }
 
-    private static Item copy(final Item source) {
-        Item copy = new Item();
-        for (int i = 0; i < source.size(); i++) {
-            copy.add(source.get(i));
+    /**
+     * Whether the token matches {@code \d+}, or contains a match.
+     */
+    private static int digits(final String token) {
+        int count = 0;
+        for (int i = 0; i < token.length(); i++) {
+            char c = token.charAt(i);
+            if (c >= '0' && c <= '9') {
+                count++;
+            }
+        }
+        if (count == 0) {
+            return FeatureDictionary.NO_DIGITS;
         }
-        return copy;
+        return count == token.length() ? FeatureDictionary.ALL_DIGITS : FeatureDictionary.SOME_DIGITS;
     }
 
-    private static void addAttributes(final String prefix, final Item from, final Item into) {
-        for (int i = 0; i < from.size(); i++) {
-            Attribute attribute = from.get(i);
-            into.add(new Attribute(prefix + ":" + attribute.getAttr(), attribute.getValue()));
+    /**
+     * The length of {@code (0+)$} if it matches the whole token, else 0.
+     */
+    private static int trailingZeros(final String token) {
+        for (int i = 0; i < token.length(); i++) {
+            if (token.charAt(i) != '0') {
+                return 0;
+            }
         }
+        return token.length();
     }
 
-    private static String digits(final String token) {
-        Matcher matcher = DIGITS_PATTERN.matcher(token);
-        if (matcher.matches()) {
-            return "all_digits";
-        } else if (matcher.find()) {
-            return "some_digits";
-        } else {
-            return "no_digits";
+    /**
+     * Whether the token matches {@code .+[^.\w]}, with Unicode character
+     * classes.
+     */
+    private static boolean endsInPunc(final String token) {
+        if (token.isEmpty()) {
+            return false;
+        }
+        int last = token.codePointBefore(token.length());
+        int lastStart = token.length() - Character.charCount(last);
+        if (lastStart == 0 || last == '.' || Tokens.isWord(last)) {
+            return false;
+        }
+        // . doesn't match line terminators
+        for (int i = 0; i < lastStart; i++) {
+            char c = token.charAt(i);
+            if (c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029') {
+                return false;
+            }
         }
+        return true;
     }
 
-    private static String trailingZeros(final String token) {
-        Matcher matcher = TRAILING_ZEROS_PATTERN.matcher(token);
-        if (matcher.matches()) {
-            return matcher.group(1);
-        } else {
-            return "";
+    /**
+     * Whether {@code [aeiou]} case-insensitively finds a match after the
+     * token's first character.
+     */
+    private static boolean hasVowels(final String token) {
+        for (int i = 1; i < token.length(); i++) {
+            switch (token.charAt(i)) {
+                case 'a':
+                case 'e':
+                case 'i':
+                case 'o':
+                case 'u':
+                case 'A':
+                case 'E':
+                case 'I':
+                case 'O':
+                case 'U':
+                    return true;
+                default:
+            }
         }
+        return false;
     }
 
     /**
      * Print a sequence to stdout. This is the equivalent of
      * {@code print(pycrfsuite.ItemSequence(features).items())} in the python
-     * version.
+     * version, except that features which are unknown to the model or have a
+     * value of 0 aren't listed.
      *
      * @param sequence the sequence to print.
      */
-    private static void printItemSequence(final ItemSequence sequence) {
-        for (int i = 0; i < sequence.size(); i++) {
-            Item item = sequence.get(i);
-            for (int j = 0; j < item.size(); j++) {
-                Attribute attribute = item.get(j);
-                System.out.println("'" + attribute.getAttr() + "': " + attribute.getValue() + ",");
+    private static void printFeatures(final FeatureDictionary dictionary, final int[][] sequence) {
+        for (int i = 0; i < sequence.length; i++) {
+            printFeatures(dictionary, "", sequence[i]);
+            if (i > 0) {
+                printFeatures(dictionary, "previous:", sequence[i - 1]);
+            }
+            if (i == 1) {
+                System.out.println("'previous:address.start': 1,");
+            }
+            if (i < sequence.length - 1) {
+                printFeatures(dictionary, "next:", sequence[i + 1]);
+            }
+            if (i == 0) {
+                System.out.println("'address.start': 1,");
+            }
+            if (i == sequence.length - 1) {
+                System.out.println("'address.end': 1,");
+            }
+            if (i == sequence.length - 2) {
+                System.out.println("'next:address.end': 1,");
             }
             System.out.println();
         }
     }
 
+    private static void printFeatures(final FeatureDictionary dictionary, final String prefix,
+            final int[] features) {
+        for (int feature : features) {
+            System.out.println("'" + prefix + dictionary.getName(feature) + "': 1,");
+        }
+    }
+
+    /**
+     * Where a parser reads its model from.
+     */
+    private interface ModelSource {
+        ByteBuffer read() throws IOException;
+
+        default FeatureDictionary load() throws IOException {
+            return new FeatureDictionary(CrfModel.read(read()));
+        }
+    }
+
+    /**
+     * The labels of the addresses parsed so far in a batch by normalized
+     * address. They're only valid for the model that produced them, so every
+     * address in the batch is parsed with the model the first one used, even
+     * if another is swapped in meanwhile.
+     */
+    private static final class BatchTags {
+        private final Map<String, int[]> tags = new HashMap<>();
+        private ParserModel model;
+
+        ParserModel model(final AddressParser parser) {
+            if (model == null) {
+                model = parser.getModel();
+            }
+            return model;
+        }
+    }
+
+    private static final class DefaultHolder {
+        private static final AddressParser INSTANCE = builder().build();
+    }
+
+    /**
+     * Configures and creates {@link AddressParser} instances. By default a parser
+     * uses the bundled {@code usaddr.crfsuite} model.
+     * <p>
+     * The model is read when the first address is parsed, or earlier with
+     * {@link AddressParser#load()}. It is read straight into memory, never
+     * copied to a temporary file.
+     */
+    public static final class Builder {
+        private ModelSource source = resourceSource(AddressParser.class.getClassLoader(), MODEL_FILE);
+        private String modelVersion;
+        private int taggerPoolSize = Integer.getInteger(TAGGER_POOL_SIZE_PROPERTY,
+                Runtime.getRuntime().availableProcessors());
+        private int resultCacheSize;
+        private int tokenCacheSize;
+        private ParseListener listener;
+        private Executor asyncExecutor = ForkJoinPool.commonPool();
+        private int asyncConcurrency;
+
+        private Builder() {
+        }
+
+        /**
+         * Read the model from a classpath resource, using the class loader that
+         * loaded this library.
+         *
+         * @param name the resource name, such as {@code models/usaddr.crfsuite}.
+         * @return this builder.
+         */
+        public Builder modelResource(final String name) {
+            return modelResource(AddressParser.class.getClassLoader(), name);
+        }
+
+        /**
+         * Read the model from a classpath resource.
+         *
+         * @param classLoader the class loader to find the resource with.
+         * @param name        the resource name, such as
+         *                    {@code models/usaddr.crfsuite}.
+         * @return this builder.
+         */
+        public Builder modelResource(final ClassLoader classLoader, final String name) {
+            Objects.requireNonNull(classLoader, "classLoader");
+            Objects.requireNonNull(name, "name");
+            source = resourceSource(classLoader, name);
+            return this;
+        }
+
+        /**
+         * Name the version of the model, which each parsed address reports in
+         * {@link Address#getModelVersion()}. Defaults to the model's resource
+         * name or path.
+         *
+         * @param version the version.
+         * @return this builder.
+         * @see AddressParser#swapModel(Path, String)
+         */
+        public Builder modelVersion(final String version) {
+            modelVersion = Objects.requireNonNull(version, "version");
+            return this;
+        }
+
+        /**
+         * Read the model from a file.
+         *
+         * @param path the path of a CRFsuite model file.
+         * @return this builder.
+         */
+        public Builder modelPath(final Path path) {
+            Objects.requireNonNull(path, "path");
+            source = new ModelSource() {
+                @Override
+                public ByteBuffer read() throws IOException {
+                    return ByteBuffer.wrap(Files.readAllBytes(path));
+                }
+
+                @Override
+                public String toString() {
+                    return path.toString();
+                }
+            };
+            return this;
+        }
+
+        /**
+         * Load a model file and share the decoded model with every other
+         * parser in this JVM that loads the same file, so parsers after the
+         * first don't load the model again. The file is decoded from a
+         * read-only memory mapping rather than a byte array, but the model
+         * itself is held in the heap, and isn't shared with other processes.
+         * A file that has changed since it was loaded is loaded again.
+         *
+         * @param path the path of a CRFsuite model file.
+         * @return this builder.
+         */
+        public Builder sharedModelPath(final Path path) {
+            Objects.requireNonNull(path, "path");
+            source = new ModelSource() {
+                @Override
+                public ByteBuffer read() throws IOException {
+                    return ModelStore.map(path);
+                }
+
+                @Override
+                public FeatureDictionary load() throws IOException {
+                    return ModelStore.load(path);
+                }
+
+                @Override
+                public String toString() {
+                    return path.toString();
+                }
+            };
+            return this;
+        }
+
+        /**
+         * Read the model from the contents of a CRFsuite model file that are
+         * already in memory. The buffer's remaining bytes are used, and its
+         * position, limit and byte order are left untouched.
+         *
+         * @param buffer the model contents.
+         * @return this builder.
+         */
+        public Builder modelBuffer(final ByteBuffer buffer) {
+            Objects.requireNonNull(buffer, "buffer");
+            ByteBuffer contents = buffer.duplicate();
+            source = new ModelSource() {
+                @Override
+                public ByteBuffer read() {
+                    return contents;
+                }
+
+                @Override
+                public String toString() {
+                    return "model buffer";
+                }
+            };
+            return this;
+        }
+
+        /**
+         * Set how many taggers the parser keeps for reuse. This should be about
+         * the number of threads that parse at once; more threads still work, but
+         * allocate scratch space for each parse.
+         *
+         * @param size the pool size, at least 1.
+         * @return this builder.
+         */
+        public Builder taggerPoolSize(final int size) {
+            if (size < 1) {
+                throw new IllegalArgumentException("Pool size must be positive: " + size);
+            }
+            taggerPoolSize = size;
+            return this;
+        }
+
+        /**
+         * Cache the labels of up to this many distinct addresses, evicting the
+         * least recently used ones. Addresses that differ only in case, spacing
+         * or ampersand encoding share an entry, and cached addresses skip
+         * featurizing and tagging. Disabled by default.
+         *
+         * @param maxEntries the cache size, or {@code 0} to disable caching.
+         * @return this builder.
+         * @see AddressParser#getResultCacheStats()
+         */
+        public Builder resultCacheSize(final int maxEntries) {
+            if (maxEntries < 0) {
+                throw new IllegalArgumentException("Cache size must not be negative: " + maxEntries);
+            }
+            resultCacheSize = maxEntries;
+            return this;
+        }
+
+        /**
+         * Cache the features of up to this many distinct tokens, evicting the
+         * least recently used ones. Common tokens such as {@code St}, state
+         * abbreviations and zip codes then skip the per-token pattern matching.
+         * Disabled by default.
+         *
+         * @param maxEntries the cache size, or {@code 0} to disable caching.
+         * @return this builder.
+         * @see AddressParser#getTokenCacheStats()
+         */
+        public Builder tokenCacheSize(final int maxEntries) {
+            if (maxEntries < 0) {
+                throw new IllegalArgumentException("Cache size must not be negative: " + maxEntries);
+            }
+            tokenCacheSize = maxEntries;
+            return this;
+        }
+
+        /**
+         * Report how long each stage of each parse takes. Without a listener,
+         * parsing doesn't read the clock at all.
+         *
+         * @param listener the listener, or {@code null} for none.
+         * @return this builder.
+         * @see ParseMetrics
+         */
+        public Builder listener(final ParseListener listener) {
+            this.listener = listener;
+            return this;
+        }
+
+        /**
+         * Set the executor that {@link AddressParser#parseAddressAsync(String)}
+         * and {@link AddressParser#parseAndCleanAddressAsync(String)} parse on.
+         * Defaults to the common fork-join pool. Parsing only computes, so an
+         * executor of virtual threads gains nothing over a few platform threads.
+         *
+         * @param executor the executor.
+         * @return this builder.
+         */
+        public Builder asyncExecutor(final Executor executor) {
+            Objects.requireNonNull(executor, "executor");
+            asyncExecutor = executor;
+            return this;
+        }
+
+        /**
+         * Set the most addresses that are parsed asynchronously at once. Others
+         * wait in a queue without holding a thread. Defaults to the tagger pool
+         * size, so that every asynchronous parse can reuse a pooled tagger.
+         *
+         * @param maxConcurrency the limit, at least 1.
+         * @return this builder.
+         */
+        public Builder asyncConcurrency(final int maxConcurrency) {
+            if (maxConcurrency < 1) {
+                throw new IllegalArgumentException("Concurrency must be positive: " + maxConcurrency);
+            }
+            asyncConcurrency = maxConcurrency;
+            return this;
+        }
+
+        /**
+         * @return a new parser. Its model isn't read until it's needed.
+         */
+        public AddressParser build() {
+            return new AddressParser(this);
+        }
+
+        private static ModelSource resourceSource(final ClassLoader classLoader, final String name) {
+            return new ModelSource() {
+                @Override
+                public ByteBuffer read() throws IOException {
+                    try (InputStream input = classLoader.getResourceAsStream(name)) {
+                        if (input == null) {
+                            throw new FileNotFoundException("Missing resource " + name);
+                        }
+                        return ByteBuffer.wrap(input.readAllBytes());
+                    }
+                }
+
+                @Override
+                public String toString() {
+                    return name;
+                }
+            };
+        }
+    }
+
 }
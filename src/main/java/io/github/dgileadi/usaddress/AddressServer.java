@@ -0,0 +1,594 @@
+package io.github.dgileadi.usaddress;
+
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * A small HTTP server that parses addresses, so that programs outside the JVM
+ * can share one loaded model. It uses the JDK's built-in
+ * {@code com.sun.net.httpserver} and needs no other libraries.
+ * <p>
+ * It has these endpoints:
+ * <ul>
+ * <li>{@code GET /parse?address=...}, or {@code POST /parse} with the address
+ * as a plain text body: responds with a JSON object with {@code address},
+ * {@code addressType} and {@code addressFields} members.</li>
+ * <li>{@code POST /batch} with newline-delimited JSON objects, each with an
+ * {@code address} string member: streams back each object with
+ * {@code addressType} and {@code addressFields} members added, just as
+ * {@link BulkParser} does.</li>
+ * <li>{@code GET /health}: responds 200 while the server runs, with whether
+ * it's ready, the model version and how busy it is, or 503 if the model
+ * couldn't be loaded.</li>
+ * <li>{@code GET /ready}: responds 200 once the model is loaded and the
+ * parser {@link AddressParser#warmUp() warmed up}, and 503 until then, for
+ * readiness probes.</li>
+ * </ul>
+ * Errors are JSON objects with an {@code error} member.
+ * <p>
+ * Requests are handled on virtual threads when the JVM has them, and on a
+ * pool of platform threads otherwise. Only a limited number of parse and
+ * batch requests run at once; others wait a while for a turn and are turned
+ * away with 503 if none comes. Health checks are never limited.
+ * <p>
+ * Small responses can wait about 40 ms for the client's delayed
+ * acknowledgement unless the JDK server disables Nagle's algorithm, which it
+ * does when the {@code sun.net.httpserver.nodelay} system property is
+ * {@code true}. That property is JVM-wide and is read when the first
+ * {@code HttpServer} is created, so a server never sets it; applications that
+ * embed one should set it themselves, typically with
+ * {@code -Dsun.net.httpserver.nodelay=true}.
+ * <p>
+ * {@link #main(String[])} runs a server from the command line, and sets that
+ * property unless it's already set.
+ */
+public final class AddressServer implements AutoCloseable {
+    private static final String JSON = "application/json";
+    private static final String NDJSON = "application/x-ndjson";
+    // read once, when the first server in the JVM is created
+    private static final String NODELAY_PROPERTY = "sun.net.httpserver.nodelay";
+
+    private final AddressParser parser;
+    private final boolean clean;
+    private final String host;
+    private final int port;
+    private final int maxConcurrency;
+    private final long maxWaitNanos;
+    private final int maxBodySize;
+    private final boolean warmUp;
+    private final BulkParser batchParser;
+    private final Semaphore permits;
+    private HttpServer server;
+    private ExecutorService executor;
+    private volatile Exception loadError;
+
+    private AddressServer(final Builder builder) {
+        this.parser = builder.parser;
+        this.clean = builder.clean;
+        this.host = builder.host;
+        this.port = builder.port;
+        this.maxConcurrency = builder.maxConcurrency;
+        this.maxWaitNanos = builder.maxWait.toNanos();
+        this.maxBodySize = builder.maxBodySize;
+        this.warmUp = builder.warmUp;
+        this.batchParser = BulkParser.builder().parser(parser).format(BulkParser.Format.NDJSON).clean(clean)
+                .build();
+        this.permits = new Semaphore(maxConcurrency);
+    }
+
+    /**
+     * @return a new builder.
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Start listening, and load the model and warm up the parser in the
+     * background. Requests that arrive before the model is loaded wait for it;
+     * ones that arrive during warm-up are parsed, just more slowly.
+     *
+     * @return this server.
+     * @throws IOException           if the server can't listen on its host and
+     *                               port.
+     * @throws IllegalStateException if the server has already been started.
+     */
+    public synchronized AddressServer start() throws IOException {
+        if (server != null) {
+            throw new IllegalStateException("The server has already been started");
+        }
+        HttpServer started = HttpServer.create(new InetSocketAddress(host, port), 0);
+        executor = newExecutor();
+        started.setExecutor(executor);
+        started.createContext("/", exchange -> handle(exchange, this::notFound));
+        started.createContext("/parse", exchange -> handle(exchange, this::parse));
+        started.createContext("/batch", exchange -> handle(exchange, this::batch));
+        started.createContext("/health", exchange -> handle(exchange, this::health));
+        started.createContext("/ready", exchange -> handle(exchange, this::ready));
+        started.start();
+        server = started;
+
+        executor.execute(() -> {
+            try {
+                parser.load();
+                if (warmUp) {
+                    parser.warmUp();
+                }
+            } catch (IOException | RuntimeException e) {
+                loadError = e;
+            }
+        });
+        return this;
+    }
+
+    /**
+     * @return the port the server listens on, which is chosen by the system if
+     *         it was built with port 0.
+     * @throws IllegalStateException if the server isn't running.
+     */
+    public synchronized int getPort() {
+        if (server == null) {
+            throw new IllegalStateException("The server isn't running");
+        }
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Stop listening, give requests in progress a second to finish, and stop
+     * their threads.
+     */
+    @Override
+    public synchronized void close() {
+        if (server != null) {
+            server.stop(1);
+            executor.shutdownNow();
+            server = null;
+            executor = null;
+        }
+    }
+
+    private void parse(final HttpExchange exchange) throws IOException {
+        String address;
+        String method = exchange.getRequestMethod();
+        if ("GET".equals(method)) {
+            address = queryParameter(exchange.getRequestURI().getRawQuery(), "address");
+            if (address == null) {
+                sendError(exchange, 400, "No address parameter");
+                return;
+            }
+        } else if ("POST".equals(method)) {
+            address = readBody(exchange);
+            if (address == null) {
+                sendError(exchange, 413, "The address is longer than " + maxBodySize + " bytes");
+                return;
+            }
+        } else {
+            methodNotAllowed(exchange, "GET, POST");
+            return;
+        }
+
+        if (!acquire(exchange)) {
+            return;
+        }
+        StringBuilder out = new StringBuilder(256);
+        try {
+            Address parsed = clean ? parser.parseAndCleanAddress(address) : parser.parseAddress(address);
+            out.append("{\"address\":");
+            Json.appendString(out, address);
+            out.append(',');
+            Json.appendAddressMembers(out, parsed);
+            out.append("}\n");
+        } finally {
+            permits.release();
+        }
+        send(exchange, 200, JSON, out.toString());
+    }
+
+    private void batch(final HttpExchange exchange) throws IOException {
+        if (!"POST".equals(exchange.getRequestMethod())) {
+            methodNotAllowed(exchange, "POST");
+            return;
+        }
+        if (!acquire(exchange)) {
+            return;
+        }
+        try {
+            parser.load();
+            exchange.getResponseHeaders().set("Content-Type", NDJSON);
+            exchange.sendResponseHeaders(200, 0);
+            // the body is read as the response is written, so that batches of any size stream through
+            Writer output = new BufferedWriter(
+                    new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.UTF_8), 1 << 16);
+            batchParser.runOnCallingThread(
+                    new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8), output);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private void health(final HttpExchange exchange) throws IOException {
+        if (!"GET".equals(exchange.getRequestMethod())) {
+            methodNotAllowed(exchange, "GET");
+            return;
+        }
+        Exception error = loadError;
+        StringBuilder out = new StringBuilder(128);
+        out.append("{\"status\":\"").append(error == null ? "UP" : "DOWN").append('"');
+        out.append(",\"ready\":").append(isReady());
+        out.append(",\"modelVersion\":");
+        Json.appendString(out, parser.getModelVersion());
+        out.append(",\"active\":").append(maxConcurrency - permits.availablePermits());
+        out.append(",\"waiting\":").append(permits.getQueueLength());
+        out.append(",\"maxConcurrency\":").append(maxConcurrency);
+        if (error != null) {
+            out.append(",\"error\":");
+            Json.appendString(out, String.valueOf(error));
+        }
+        out.append("}\n");
+        send(exchange, error == null ? 200 : 503, JSON, out.toString());
+    }
+
+    private void ready(final HttpExchange exchange) throws IOException {
+        if (!"GET".equals(exchange.getRequestMethod())) {
+            methodNotAllowed(exchange, "GET");
+            return;
+        }
+        boolean ready = isReady();
+        send(exchange, ready ? 200 : 503, JSON, "{\"ready\":" + ready + "}\n");
+    }
+
+    private boolean isReady() {
+        return warmUp ? parser.isWarm() : parser.isLoaded();
+    }
+
+    private void notFound(final HttpExchange exchange) throws IOException {
+        sendError(exchange, 404, "No such endpoint: " + exchange.getRequestURI().getPath());
+    }
+
+    /**
+     * Handle a request, answering it with an error if the handler fails, and
+     * always closing the exchange.
+     */
+    private void handle(final HttpExchange exchange, final HttpHandler handler) {
+        try {
+            String path = exchange.getRequestURI().getPath();
+            // contexts match any path with their prefix
+            if (!path.equals(exchange.getHttpContext().getPath())) {
+                notFound(exchange);
+            } else {
+                handler.handle(exchange);
+            }
+        } catch (IOException | RuntimeException e) {
+            try {
+                // only possible if the response hasn't started
+                if (exchange.getResponseCode() < 0) {
+                    sendError(exchange, 500, String.valueOf(e));
+                }
+            } catch (IOException | RuntimeException ignored) {
+                // the client is gone
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Wait for a turn to parse, or answer 503 if none comes in time.
+     *
+     * @return whether the caller may parse, and must release the permit.
+     */
+    private boolean acquire(final HttpExchange exchange) throws IOException {
+        try {
+            if (permits.tryAcquire(maxWaitNanos, TimeUnit.NANOSECONDS)) {
+                return true;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        exchange.getResponseHeaders().set("Retry-After", "1");
+        sendError(exchange, 503, "Too many concurrent requests");
+        return false;
+    }
+
+    /**
+     * @return the request body, or {@code null} if it's too large.
+     */
+    private String readBody(final HttpExchange exchange) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        try (InputStream input = exchange.getRequestBody()) {
+            int read;
+            while ((read = input.read(buffer)) >= 0) {
+                if (body.size() + read > maxBodySize) {
+                    return null;
+                }
+                body.write(buffer, 0, read);
+            }
+        }
+        return new String(body.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private static String queryParameter(final String query, final String name) {
+        if (query == null) {
+            return null;
+        }
+        for (String parameter : query.split("&")) {
+            int equals = parameter.indexOf('=');
+            String key = equals < 0 ? parameter : parameter.substring(0, equals);
+            if (URLDecoder.decode(key, StandardCharsets.UTF_8).equals(name)) {
+                return equals < 0 ? "" : URLDecoder.decode(parameter.substring(equals + 1), StandardCharsets.UTF_8);
+            }
+        }
+        return null;
+    }
+
+    private static void methodNotAllowed(final HttpExchange exchange, final String allowed) throws IOException {
+        exchange.getResponseHeaders().set("Allow", allowed);
+        sendError(exchange, 405, "Method not allowed: " + exchange.getRequestMethod());
+    }
+
+    private static void sendError(final HttpExchange exchange, final int status, final String message)
+            throws IOException {
+        StringBuilder out = new StringBuilder("{\"error\":");
+        Json.appendString(out, message);
+        out.append("}\n");
+        send(exchange, status, JSON, out.toString());
+    }
+
+    private static void send(final HttpExchange exchange, final int status, final String contentType,
+            final String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", contentType + "; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream output = exchange.getResponseBody()) {
+            output.write(bytes);
+        }
+    }
+
+    private static ExecutorService newExecutor() {
+        try {
+            // virtual threads arrived in Java 21, after the release this is built for
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool(new WorkerFactory());
+        }
+    }
+
+    /**
+     * Run a server until the JVM is stopped.
+     *
+     * @param args the command line arguments; run with {@code --help} to list
+     *             them.
+     */
+    public static void main(final String[] args) {
+        Builder builder = builder();
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--host":
+                        builder.host(value(args, ++i));
+                        break;
+                    case "--port":
+                        builder.port(Integer.parseInt(value(args, ++i)));
+                        break;
+                    case "--max-concurrency":
+                        builder.maxConcurrency(Integer.parseInt(value(args, ++i)));
+                        break;
+                    case "--max-wait-millis":
+                        builder.maxWait(Duration.ofMillis(Long.parseLong(value(args, ++i))));
+                        break;
+                    case "--raw":
+                        builder.clean(false);
+                        break;
+                    case "--no-warm-up":
+                        builder.warmUp(false);
+                        break;
+                    case "--help":
+                    case "-h":
+                        usage(null);
+                        return;
+                    default:
+                        throw new IllegalArgumentException("Unknown option " + args[i]);
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            usage(e.getMessage());
+            System.exit(2);
+            return;
+        }
+
+        // without this, small responses wait for the client's delayed acknowledgement, about 40 ms
+        if (System.getProperty(NODELAY_PROPERTY) == null) {
+            System.setProperty(NODELAY_PROPERTY, "true");
+        }
+        AddressServer server = builder.build();
+        try {
+            server.start();
+        } catch (IOException e) {
+            System.err.println("Error: " + e.getMessage());
+            System.exit(1);
+            return;
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(server::close));
+        System.err.println("Listening on http://" + server.host + ":" + server.getPort());
+    }
+
+    private static String value(final String[] args, final int index) {
+        if (index >= args.length) {
+            throw new IllegalArgumentException(args[index - 1] + " needs a value");
+        }
+        return args[index];
+    }
+
+    private static void usage(final String error) {
+        if (error != null) {
+            System.err.println(error);
+        }
+        System.err.println("Usage: java " + AddressServer.class.getName() + " [options]");
+        System.err.println();
+        System.err.println("  --host HOST             the host to listen on (default: 127.0.0.1)");
+        System.err.println("  --port N                the port to listen on (default: 8080)");
+        System.err.println("  --max-concurrency N     the most parse and batch requests at once");
+        System.err.println("                          (default: two per core)");
+        System.err.println("  --max-wait-millis N     how long a request waits for a turn (default: 1000)");
+        System.err.println("  --raw                   one field per token instead of merged, cleaned fields");
+        System.err.println("  --no-warm-up            report ready as soon as the model is loaded");
+    }
+
+    /**
+     * Names request threads, and makes them daemons so that they don't keep the
+     * JVM running.
+     */
+    private static final class WorkerFactory implements ThreadFactory {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(final Runnable task) {
+            Thread thread = new Thread(task, "usaddress-server-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
+    public static final class Builder {
+        private AddressParser parser = AddressParser.getDefault();
+        private boolean clean = true;
+        private String host = "127.0.0.1";
+        private int port = 8080;
+        private int maxConcurrency = Runtime.getRuntime().availableProcessors() * 2;
+        private Duration maxWait = Duration.ofSeconds(1);
+        private int maxBodySize = 64 * 1024;
+        private boolean warmUp = true;
+
+        private Builder() {
+        }
+
+        /**
+         * @param parser the parser to use. Defaults to
+         *               {@link AddressParser#getDefault()}.
+         * @return this builder.
+         */
+        public Builder parser(final AddressParser parser) {
+            this.parser = Objects.requireNonNull(parser, "parser");
+            return this;
+        }
+
+        /**
+         * @param clean whether to merge and clean fields as
+         *              {@link AddressParser#parseAndCleanAddress(String)} does,
+         *              rather than return one field per token. Defaults to
+         *              {@code true}.
+         * @return this builder.
+         */
+        public Builder clean(final boolean clean) {
+            this.clean = clean;
+            return this;
+        }
+
+        /**
+         * @param host the host name or address to listen on. Defaults to
+         *             {@code 127.0.0.1}, so that only local programs can
+         *             connect.
+         * @return this builder.
+         */
+        public Builder host(final String host) {
+            this.host = Objects.requireNonNull(host, "host");
+            return this;
+        }
+
+        /**
+         * @param port the port to listen on, or 0 for any free port. Defaults
+         *             to 8080.
+         * @return this builder.
+         */
+        public Builder port(final int port) {
+            if (port < 0 || port > 65535) {
+                throw new IllegalArgumentException("Invalid port: " + port);
+            }
+            this.port = port;
+            return this;
+        }
+
+        /**
+         * @param maxConcurrency the most parse and batch requests to handle at
+         *                       once, at least 1. Defaults to twice the number
+         *                       of available processors.
+         * @return this builder.
+         */
+        public Builder maxConcurrency(final int maxConcurrency) {
+            if (maxConcurrency < 1) {
+                throw new IllegalArgumentException("Concurrency must be positive: " + maxConcurrency);
+            }
+            this.maxConcurrency = maxConcurrency;
+            return this;
+        }
+
+        /**
+         * @param maxWait how long a request waits for a turn when the most
+         *                requests are already being handled, before it's
+         *                answered with 503. Defaults to one second.
+         * @return this builder.
+         */
+        public Builder maxWait(final Duration maxWait) {
+            if (maxWait.isNegative()) {
+                throw new IllegalArgumentException("Wait must not be negative: " + maxWait);
+            }
+            this.maxWait = maxWait;
+            return this;
+        }
+
+        /**
+         * @param bytes the longest address accepted as a {@code POST /parse}
+         *              body. Defaults to 64 KiB. Batches aren't limited, since
+         *              they're streamed.
+         * @return this builder.
+         */
+        public Builder maxBodySize(final int bytes) {
+            if (bytes < 1) {
+                throw new IllegalArgumentException("Body size must be positive: " + bytes);
+            }
+            this.maxBodySize = bytes;
+            return this;
+        }
+
+        /**
+         * @param warmUp whether to {@link AddressParser#warmUp() warm up} the
+         *               parser when the server starts, and report it ready
+         *               only once that's done. Defaults to {@code true}.
+         * @return this builder.
+         */
+        public Builder warmUp(final boolean warmUp) {
+            this.warmUp = warmUp;
+            return this;
+        }
+
+        /**
+         * @return a new server, which isn't started yet.
+         */
+        public AddressServer build() {
+            return new AddressServer(this);
+        }
+    }
+
+}
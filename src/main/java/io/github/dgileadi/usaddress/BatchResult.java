@@ -0,0 +1,49 @@
+package io.github.dgileadi.usaddress;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * The addresses parsed from a batch, in the order they were given, and how
+ * many of them were duplicates that didn't need to be parsed again.
+ */
+public final class BatchResult {
+    private final List<Address> addresses;
+    private final int uniqueCount;
+
+    BatchResult(final List<Address> addresses, final int uniqueCount) {
+        this.addresses = Collections.unmodifiableList(addresses);
+        this.uniqueCount = uniqueCount;
+    }
+
+    /**
+     * @return the parsed addresses, one for each input in the same order.
+     */
+    public List<Address> getAddresses() {
+        return addresses;
+    }
+
+    /**
+     * @return the number of distinct addresses that were parsed. Addresses
+     *         that differ only in case, spacing or ampersand encoding count
+     *         once.
+     */
+    public int getUniqueCount() {
+        return uniqueCount;
+    }
+
+    /**
+     * @return the number of inputs that repeated an earlier one in the batch,
+     *         and reused its labels instead of being parsed again.
+     */
+    public int getDuplicateCount() {
+        return addresses.size() - uniqueCount;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "%,d addresses (%,d duplicates)", addresses.size(), getDuplicateCount());
+    }
+
+}
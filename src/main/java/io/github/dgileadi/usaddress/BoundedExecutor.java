@@ -0,0 +1,121 @@
+package io.github.dgileadi.usaddress;
+
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Runs tasks on another executor, at most a fixed number at a time. Tasks
+ * beyond the limit wait in a queue until a running task finishes.
+ * <p>
+ * Nothing here blocks or holds a lock: submitting a task only queues it, and
+ * each finishing task starts the next queued one on its way out. A task never
+ * runs on the thread that submits it. If the underlying executor rejects a
+ * task, or fails in any other way to start it, the task's future completes
+ * with that exception instead.
+ */
+final class BoundedExecutor {
+    private final Executor executor;
+    private final int maxConcurrency;
+    private final Queue<Task<?>> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger running = new AtomicInteger();
+
+    /**
+     * @param executor       the executor to run tasks on.
+     * @param maxConcurrency the most tasks to run at once, at least 1.
+     */
+    BoundedExecutor(final Executor executor, final int maxConcurrency) {
+        if (maxConcurrency < 1) {
+            throw new IllegalArgumentException("Concurrency must be positive: " + maxConcurrency);
+        }
+        this.executor = executor;
+        this.maxConcurrency = maxConcurrency;
+    }
+
+    /**
+     * Queue a task to run once there's room.
+     *
+     * @param supplier the task.
+     * @return its result, or the exception it threw or that kept it from
+     *         starting.
+     */
+    <T> CompletableFuture<T> supply(final Supplier<T> supplier) {
+        Task<T> task = new Task<>(supplier);
+        queue.add(task);
+        startQueued();
+        return task.result;
+    }
+
+    /**
+     * @return the number of tasks running now.
+     */
+    int getRunning() {
+        return running.get();
+    }
+
+    /**
+     * @return the number of tasks waiting to run.
+     */
+    int getQueued() {
+        return queue.size();
+    }
+
+    private void startQueued() {
+        while (!queue.isEmpty()) {
+            int count = running.get();
+            if (count >= maxConcurrency) {
+                // a running task will start the next one when it finishes
+                return;
+            }
+            if (!running.compareAndSet(count, count + 1)) {
+                continue;
+            }
+            Task<?> task = queue.poll();
+            if (task == null) {
+                running.decrementAndGet();
+                continue;
+            }
+            boolean started = false;
+            try {
+                executor.execute(() -> run(task));
+                started = true;
+            } catch (Throwable e) {
+                task.result.completeExceptionally(e);
+            } finally {
+                if (!started) {
+                    running.decrementAndGet();
+                }
+            }
+        }
+    }
+
+    private void run(final Task<?> task) {
+        try {
+            task.run();
+        } finally {
+            running.decrementAndGet();
+            startQueued();
+        }
+    }
+
+    private static final class Task<T> {
+        private final Supplier<T> supplier;
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+
+        Task(final Supplier<T> supplier) {
+            this.supplier = supplier;
+        }
+
+        void run() {
+            try {
+                result.complete(supplier.get());
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,984 @@
+package io.github.dgileadi.usaddress;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.CharArrayReader;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Parse a stream of address records in parallel, writing each record's parsed
+ * fields in input order.
+ * <p>
+ * Records are read in batches and parsed on a pool of threads. Only a bounded
+ * number of records are in flight at once: once the limit is reached, reading
+ * waits for the oldest batch to be parsed and written. So inputs of any size
+ * stream through in constant memory.
+ * <p>
+ * The output depends on the input {@link Format}:
+ * <ul>
+ * <li>{@link Format#TEXT}: one address per line, written as one JSON object
+ * per line with {@code address}, {@code addressType} and {@code addressFields}
+ * members.</li>
+ * <li>{@link Format#NDJSON}: one JSON object per line, whose address is a
+ * string member. Each object is written back with {@code addressType} and
+ * {@code addressFields} members added.</li>
+ * <li>{@link Format#CSV}: comma-separated records with a header row, one of
+ * whose columns holds the address. Each record is written back with an
+ * {@code AddressType} column, a column for each {@link Address.FieldType} and
+ * an {@code AddressError} column.</li>
+ * </ul>
+ * A record that can't be parsed, such as a malformed JSON line, gets an
+ * {@code addressError} instead of fields and is counted as an error.
+ * <p>
+ * Plain text and newline-delimited JSON files given by path are instead split
+ * into chunks that end at line breaks, which are read and parsed in parallel,
+ * so that a single reader doesn't limit how fast a large file is parsed. See
+ * {@link #run(Path, Path)} and {@link #runInParts(Path, Path)}.
+ * <p>
+ * {@link #main(String[])} runs the same thing from the command line.
+ */
+public final class BulkParser {
+
+    /**
+     * The format of bulk input.
+     */
+    public enum Format {
+        /** One address per line. */
+        TEXT,
+        /** Comma-separated values with a header row. */
+        CSV,
+        /** One JSON object per line. */
+        NDJSON
+    }
+
+    /**
+     * How far a bulk parse has gotten.
+     */
+    public static final class Progress {
+        private final long records;
+        private final long errors;
+        private final long elapsedNanos;
+
+        Progress(final long records, final long errors, final long elapsedNanos) {
+            this.records = records;
+            this.errors = errors;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        /**
+         * @return the number of records written so far.
+         */
+        public long getRecords() {
+            return records;
+        }
+
+        /**
+         * @return the number of records that couldn't be parsed.
+         */
+        public long getErrors() {
+            return errors;
+        }
+
+        /**
+         * @return the time since parsing started.
+         */
+        public Duration getElapsed() {
+            return Duration.ofNanos(elapsedNanos);
+        }
+
+        /**
+         * @return the average number of records written per second.
+         */
+        public double getRecordsPerSecond() {
+            return elapsedNanos == 0 ? 0 : records * 1e9 / elapsedNanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "%,d records (%,d errors) in %.1f s, %,.0f records/sec", records,
+                    errors, elapsedNanos / 1e9, getRecordsPerSecond());
+        }
+    }
+
+    private static final String DEFAULT_ADDRESS_COLUMN = "address";
+
+    private final AddressParser parser;
+    private final Format format;
+    private final String addressColumn;
+    private final boolean clean;
+    private final int threads;
+    private final int batchSize;
+    private final int maxInFlightBatches;
+    private final int chunkSize;
+    private final Consumer<Progress> progressListener;
+    private final long progressIntervalNanos;
+
+    private BulkParser(final Builder builder) {
+        this.parser = builder.parser;
+        this.format = builder.format;
+        this.addressColumn = builder.addressColumn;
+        this.clean = builder.clean;
+        this.threads = builder.threads;
+        this.batchSize = builder.batchSize;
+        int maxInFlight = builder.maxInFlight > 0 ? builder.maxInFlight : threads * batchSize * 4;
+        this.maxInFlightBatches = Math.max(1, maxInFlight / batchSize);
+        this.chunkSize = builder.chunkSize;
+        this.progressListener = builder.progressListener;
+        this.progressIntervalNanos = builder.progressInterval.toNanos();
+    }
+
+    /**
+     * @return a new builder.
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Parse every record of the input and write the results. Neither the input
+     * nor the output is closed.
+     *
+     * @param input  the records to parse.
+     * @param output where to write the parsed records. It's flushed at the end.
+     * @return the final progress, including the number of records and errors.
+     * @throws IOException if the input can't be read, the output can't be
+     *                     written, the model can't be read or a CSV input has
+     *                     no address column.
+     */
+    public Progress run(final Reader input, final Writer output) throws IOException {
+        parser.load();
+        switch (format) {
+            case CSV:
+                return run(new CsvCodec(new Csv(input)), output);
+            case NDJSON:
+                return run(new NdjsonCodec(buffered(input)), output);
+            default:
+                return run(new TextCodec(buffered(input)), output);
+        }
+    }
+
+    private <R> Progress run(final Codec<R> codec, final Writer output) throws IOException {
+        Tally tally = new Tally();
+        codec.writeHeader(output);
+        ExecutorService executor = Executors.newFixedThreadPool(threads, new WorkerFactory());
+        try {
+            ArrayDeque<Future<Batch>> pending = new ArrayDeque<>();
+            boolean more = true;
+            while (more || !pending.isEmpty()) {
+                if (more) {
+                    List<R> batch = new ArrayList<>(batchSize);
+                    R record;
+                    while (batch.size() < batchSize && (record = codec.read()) != null) {
+                        batch.add(record);
+                    }
+                    more = batch.size() == batchSize;
+                    if (!batch.isEmpty()) {
+                        long first = tally.records + pending.size() * (long) batchSize + 1;
+                        pending.add(executor.submit(() -> codec.format(batch, first)));
+                    }
+                }
+
+                // write whatever is done, and wait for the oldest batch if too many are in flight
+                while (!pending.isEmpty()
+                        && (!more || pending.size() >= maxInFlightBatches || pending.peek().isDone())) {
+                    Batch batch = await(pending.poll());
+                    output.write(batch.text);
+                    tally.add(batch);
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        output.flush();
+        return tally.finish();
+    }
+
+    /**
+     * Parse every record of a file and write the results to another file, in
+     * input order.
+     * <p>
+     * A plain text or newline-delimited JSON input is split into chunks of
+     * about {@link Builder#chunkSize(int)} bytes, each ending at a line break.
+     * Chunks are read with positioned reads and parsed on a fork-join pool,
+     * about two per thread at a time, so both reading and parsing use every
+     * thread. Such an input must be UTF-8, and a file with only carriage
+     * returns for line breaks is read as a single chunk. A CSV input is read
+     * in order by {@link #run(Reader, Writer)}, since a quoted field may span
+     * lines.
+     *
+     * @param input  the file to parse.
+     * @param output the file to write. It's replaced if it exists.
+     * @return the final progress, including the number of records and errors.
+     * @throws IOException if the input can't be read, the output can't be
+     *                     written, the model can't be read or a CSV input has
+     *                     no address column.
+     */
+    public Progress run(final Path input, final Path output) throws IOException {
+        try (Writer writer = new BufferedWriter(Files.newBufferedWriter(output, StandardCharsets.UTF_8), 1 << 16)) {
+            if (format == Format.CSV) {
+                try (Reader reader = Files.newBufferedReader(input, StandardCharsets.UTF_8)) {
+                    return run(reader, writer);
+                }
+            }
+            return runChunks(input, writer, null);
+        }
+    }
+
+    /**
+     * Parse every record of a file as {@link #run(Path, Path)} does, but write
+     * the results of each chunk to its own file as soon as it's parsed, instead
+     * of waiting for earlier chunks. The files are named
+     * {@code part-00000.ndjson}, {@code part-00001.ndjson} and so on in input
+     * order, so concatenating them gives the same output as
+     * {@link #run(Path, Path)}.
+     *
+     * @param input     the plain text or newline-delimited JSON file to parse.
+     * @param directory the directory to write to. It's created if it doesn't
+     *                  exist, and existing parts are replaced.
+     * @return the final progress, including the number of records and errors.
+     * @throws IOException           if the input can't be read, the output
+     *                               can't be written or the model can't be
+     *                               read.
+     * @throws IllegalStateException if the input format is CSV.
+     */
+    public Progress runInParts(final Path input, final Path directory) throws IOException {
+        if (format == Format.CSV) {
+            throw new IllegalStateException("CSV input can't be split into parts, since a quoted field may span lines");
+        }
+        Files.createDirectories(directory);
+        return runChunks(input, null, directory);
+    }
+
+    private Progress runChunks(final Path input, final Writer output, final Path directory) throws IOException {
+        parser.load();
+        Tally tally = new Tally();
+        Codec<String> codec = lineCodec(null);
+        int maxInFlightChunks = threads * 2;
+
+        ForkJoinPool pool = new ForkJoinPool(threads, new WorkerFactory(), null, false);
+        try (FileChannel channel = FileChannel.open(input, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long start = 0;
+            int part = 0;
+            // the number of each chunk's first record, known once the chunks before it are read
+            CompletableFuture<Long> nextFirst = CompletableFuture.completedFuture(1L);
+            ArrayDeque<Future<Batch>> pending = new ArrayDeque<>();
+            while (start < size || !pending.isEmpty()) {
+                if (start < size) {
+                    long chunkStart = start;
+                    long chunkEnd = lineEnd(channel, start + chunkSize, size);
+                    if (chunkEnd - chunkStart > Integer.MAX_VALUE - 8) {
+                        throw new IOException("The line at byte " + chunkStart + " is too long");
+                    }
+                    Path partFile = directory == null ? null
+                            : directory.resolve(String.format(Locale.ROOT, "part-%05d.ndjson", part++));
+
+                    CompletableFuture<List<String>> records = CompletableFuture
+                            .supplyAsync(() -> readChunk(channel, chunkStart, chunkEnd), pool);
+                    CompletableFuture<Long> first = nextFirst;
+                    nextFirst = first.thenCombine(records, (number, chunk) -> number + chunk.size());
+                    pending.add(records.thenCombineAsync(first, (chunk, number) -> {
+                        Batch batch = codec.format(chunk, number);
+                        return partFile == null ? batch : writePart(partFile, batch);
+                    }, pool));
+                    start = chunkEnd;
+                }
+
+                while (!pending.isEmpty()
+                        && (start >= size || pending.size() >= maxInFlightChunks || pending.peek().isDone())) {
+                    Batch batch = await(pending.poll());
+                    if (output != null) {
+                        output.write(batch.text);
+                    }
+                    tally.add(batch);
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        if (output != null) {
+            output.flush();
+        }
+        return tally.finish();
+    }
+
+    /**
+     * @return the position just past the first line break at or after
+     *         {@code position - 1}, or the end of the file if there isn't one.
+     *         A chunk ending there doesn't split a line, nor a multi-byte
+     *         character, since no UTF-8 sequence contains a newline byte.
+     */
+    private static long lineEnd(final FileChannel channel, final long position, final long size)
+            throws IOException {
+        if (position >= size) {
+            return size;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(8192);
+        long offset = position - 1;
+        while (offset < size) {
+            buffer.clear();
+            int read = channel.read(buffer, offset);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n') {
+                    return offset + i + 1;
+                }
+            }
+            offset += read;
+        }
+        return size;
+    }
+
+    private List<String> readChunk(final FileChannel channel, final long start, final long end) {
+        try {
+            ByteBuffer bytes = ByteBuffer.allocate((int) (end - start));
+            while (bytes.hasRemaining()) {
+                if (channel.read(bytes, start + bytes.position()) < 0) {
+                    throw new EOFException("The file shrank while it was read");
+                }
+            }
+            bytes.flip();
+            CharBuffer chars = StandardCharsets.UTF_8.newDecoder().decode(bytes);
+            Codec<String> codec = lineCodec(
+                    new BufferedReader(new CharArrayReader(chars.array(), chars.arrayOffset(), chars.limit())));
+            List<String> records = new ArrayList<>();
+            String record;
+            while ((record = codec.read()) != null) {
+                records.add(record);
+            }
+            return records;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Parse every record of a plain text or newline-delimited JSON input on
+     * the calling thread, for callers such as {@link AddressServer} that
+     * already run many of these at once. Neither the input nor the output is
+     * closed.
+     */
+    Progress runOnCallingThread(final Reader input, final Writer output) throws IOException {
+        if (format == Format.CSV) {
+            throw new IllegalStateException("CSV input can only be parsed by run(Reader, Writer)");
+        }
+        parser.load();
+        Codec<String> codec = lineCodec(buffered(input));
+        Tally tally = new Tally();
+        List<String> records = new ArrayList<>(batchSize);
+        boolean more = true;
+        while (more) {
+            records.clear();
+            String record;
+            while (records.size() < batchSize && (record = codec.read()) != null) {
+                records.add(record);
+            }
+            more = records.size() == batchSize;
+            Batch batch = codec.format(records, tally.records + 1);
+            output.write(batch.text);
+            tally.add(batch);
+        }
+        output.flush();
+        return tally.finish();
+    }
+
+    private Codec<String> lineCodec(final BufferedReader reader) {
+        return format == Format.NDJSON ? new NdjsonCodec(reader) : new TextCodec(reader);
+    }
+
+    private static Batch writePart(final Path file, final Batch batch) {
+        try {
+            Files.writeString(file, batch.text);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return new Batch("", batch.records, batch.errors);
+    }
+
+    private static Batch await(final Future<Batch> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while parsing");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) cause).getCause();
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    private Address parse(final String address) {
+        return clean ? parser.parseAndCleanAddress(address) : parser.parseAddress(address);
+    }
+
+    private static BufferedReader buffered(final Reader input) {
+        return input instanceof BufferedReader ? (BufferedReader) input : new BufferedReader(input, 1 << 16);
+    }
+
+    /**
+     * Counts the records written and reports progress.
+     */
+    private final class Tally {
+        private final long start = System.nanoTime();
+        private long nextReport = start + progressIntervalNanos;
+        private long records;
+        private long errors;
+
+        void add(final Batch batch) {
+            records += batch.records;
+            errors += batch.errors;
+
+            long now = System.nanoTime();
+            if (progressListener != null && now - nextReport >= 0) {
+                progressListener.accept(new Progress(records, errors, now - start));
+                nextReport = now + progressIntervalNanos;
+            }
+        }
+
+        Progress finish() {
+            Progress progress = new Progress(records, errors, System.nanoTime() - start);
+            if (progressListener != null) {
+                progressListener.accept(progress);
+            }
+            return progress;
+        }
+    }
+
+    /**
+     * The parsed, formatted output of a batch of records.
+     */
+    private static final class Batch {
+        final String text;
+        final int records;
+        final int errors;
+
+        Batch(final String text, final int records, final int errors) {
+            this.text = text;
+            this.records = records;
+            this.errors = errors;
+        }
+    }
+
+    /**
+     * Reads records in one format and writes them back with their parsed
+     * fields. Reading happens on the calling thread, and formatting on the
+     * worker threads.
+     */
+    private abstract class Codec<R> {
+
+        void writeHeader(final Writer output) throws IOException {
+        }
+
+        /**
+         * @return the next record, or {@code null} at the end of the input.
+         */
+        abstract R read() throws IOException;
+
+        /**
+         * Parse a record and append its output.
+         *
+         * @return whether it could be parsed.
+         */
+        abstract boolean format(R record, long number, StringBuilder out);
+
+        Batch format(final List<R> batch, final long first) {
+            StringBuilder out = new StringBuilder(batch.size() * 256);
+            int errors = 0;
+            for (int i = 0; i < batch.size(); i++) {
+                if (!format(batch.get(i), first + i, out)) {
+                    ++errors;
+                }
+            }
+            return new Batch(out.toString(), batch.size(), errors);
+        }
+
+        void appendJsonError(final StringBuilder out, final long number, final String message) {
+            out.append("\"addressError\":");
+            Json.appendString(out, "Record " + number + ": " + message);
+        }
+    }
+
+    private final class TextCodec extends Codec<String> {
+        private final BufferedReader reader;
+
+        TextCodec(final BufferedReader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        String read() throws IOException {
+            return reader.readLine();
+        }
+
+        @Override
+        boolean format(final String line, final long number, final StringBuilder out) {
+            out.append("{\"address\":");
+            Json.appendString(out, line);
+            out.append(',');
+            boolean parsed;
+            try {
+                Json.appendAddressMembers(out, parse(line));
+                parsed = true;
+            } catch (RuntimeException e) {
+                appendJsonError(out, number, String.valueOf(e));
+                parsed = false;
+            }
+            out.append("}\n");
+            return parsed;
+        }
+    }
+
+    private final class NdjsonCodec extends Codec<String> {
+        private final BufferedReader reader;
+
+        NdjsonCodec(final BufferedReader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        String read() throws IOException {
+            String line;
+            do {
+                line = reader.readLine();
+            } while (line != null && line.isBlank());
+            return line;
+        }
+
+        @Override
+        boolean format(final String line, final long number, final StringBuilder out) {
+            String address;
+            try {
+                address = Json.getString(line, addressColumn);
+            } catch (IllegalArgumentException e) {
+                out.append('{');
+                appendJsonError(out, number, "Invalid JSON: " + e.getMessage());
+                out.append("}\n");
+                return false;
+            }
+
+            // the object is valid, so it ends with its closing brace
+            int end = line.lastIndexOf('}');
+            out.append(line, 0, end);
+            if (!line.substring(line.indexOf('{') + 1, end).isBlank()) {
+                out.append(',');
+            }
+            boolean parsed = false;
+            if (address == null) {
+                appendJsonError(out, number, "No \"" + addressColumn + "\" string member");
+            } else {
+                try {
+                    Json.appendAddressMembers(out, parse(address));
+                    parsed = true;
+                } catch (RuntimeException e) {
+                    appendJsonError(out, number, String.valueOf(e));
+                }
+            }
+            out.append("}\n");
+            return parsed;
+        }
+    }
+
+    private final class CsvCodec extends Codec<List<String>> {
+        private final Csv csv;
+        private int column;
+        private final Address.FieldType[] fieldTypes = Address.FieldType.values();
+
+        CsvCodec(final Csv csv) {
+            this.csv = csv;
+        }
+
+        @Override
+        void writeHeader(final Writer output) throws IOException {
+            List<String> header = csv.readRecord();
+            if (header == null) {
+                throw new IOException("The CSV input has no header row");
+            }
+            if (!header.isEmpty() && header.get(0).startsWith("\uFEFF")) {
+                header.set(0, header.get(0).substring(1));
+            }
+            column = header.indexOf(addressColumn);
+            for (int i = 0; i < header.size() && column < 0; i++) {
+                if (header.get(i).equalsIgnoreCase(addressColumn)) {
+                    column = i;
+                }
+            }
+            if (column < 0) {
+                throw new IOException("The CSV input has no \"" + addressColumn + "\" column");
+            }
+
+            StringBuilder out = new StringBuilder();
+            for (String name : header) {
+                Csv.appendField(out, name);
+                out.append(',');
+            }
+            out.append("AddressType");
+            for (Address.FieldType type : fieldTypes) {
+                out.append(',').append(type.getLabel());
+            }
+            out.append(",AddressError\n");
+            output.write(out.toString());
+        }
+
+        @Override
+        List<String> read() throws IOException {
+            List<String> record;
+            do {
+                record = csv.readRecord();
+            } while (record != null && record.size() == 1 && record.get(0).isEmpty());
+            return record;
+        }
+
+        @Override
+        boolean format(final List<String> record, final long number, final StringBuilder out) {
+            for (String field : record) {
+                Csv.appendField(out, field);
+                out.append(',');
+            }
+
+            String error = null;
+            Address address = null;
+            if (column >= record.size()) {
+                error = "Record " + number + ": No \"" + addressColumn + "\" column";
+            } else {
+                try {
+                    address = parse(record.get(column));
+                } catch (RuntimeException e) {
+                    error = "Record " + number + ": " + e;
+                }
+            }
+
+            String[] values = new String[fieldTypes.length];
+            if (address != null) {
+                out.append(address.getType().name());
+                for (Address.Field field : address.getFields()) {
+                    int ordinal = field.getType().ordinal();
+                    values[ordinal] = values[ordinal] == null ? field.getValue()
+                            : values[ordinal] + " " + field.getValue();
+                }
+            }
+            for (String value : values) {
+                out.append(',');
+                if (value != null) {
+                    Csv.appendField(out, value);
+                }
+            }
+            out.append(',');
+            if (error != null) {
+                Csv.appendField(out, error);
+            }
+            out.append('\n');
+            return error == null;
+        }
+    }
+
+    private static final class WorkerFactory implements ThreadFactory, ForkJoinPool.ForkJoinWorkerThreadFactory {
+        private static final AtomicInteger POOL = new AtomicInteger();
+        private final int pool = POOL.incrementAndGet();
+        private final AtomicInteger thread = new AtomicInteger();
+
+        @Override
+        public Thread newThread(final Runnable runnable) {
+            Thread worker = new Thread(runnable, name());
+            worker.setDaemon(true);
+            return worker;
+        }
+
+        @Override
+        public ForkJoinWorkerThread newThread(final ForkJoinPool forkJoinPool) {
+            ForkJoinWorkerThread worker = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(forkJoinPool);
+            worker.setName(name());
+            return worker;
+        }
+
+        private String name() {
+            return "usaddress-bulk-" + pool + "-" + thread.incrementAndGet();
+        }
+    }
+
+    /**
+     * Parse a file from the command line. Run with {@code --help} for usage.
+     * Progress is reported on standard error.
+     *
+     * @param args the command line arguments.
+     */
+    public static void main(final String[] args) {
+        Builder builder = builder();
+        String input = "-";
+        String output = "-";
+        Format format = null;
+        boolean quiet = false;
+        List<String> files = new ArrayList<>();
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--format":
+                        format = Format.valueOf(value(args, ++i).toUpperCase(Locale.ROOT));
+                        break;
+                    case "--column":
+                        builder.addressColumn(value(args, ++i));
+                        break;
+                    case "--threads":
+                        builder.threads(Integer.parseInt(value(args, ++i)));
+                        break;
+                    case "--raw":
+                        builder.clean(false);
+                        break;
+                    case "--quiet":
+                        quiet = true;
+                        break;
+                    case "--help":
+                        usage(null);
+                        return;
+                    default:
+                        if (args[i].startsWith("--")) {
+                            throw new IllegalArgumentException("Unknown option " + args[i]);
+                        }
+                        files.add(args[i]);
+                }
+            }
+            if (files.size() > 2) {
+                throw new IllegalArgumentException("Too many files");
+            }
+        } catch (IllegalArgumentException e) {
+            usage(e.getMessage());
+            System.exit(2);
+            return;
+        }
+        if (!files.isEmpty()) {
+            input = files.get(0);
+        }
+        if (files.size() > 1) {
+            output = files.get(1);
+        }
+        builder.format(format != null ? format : guessFormat(input));
+        if (!quiet) {
+            builder.progress(progress -> System.err.println(progress), Duration.ofSeconds(5));
+        }
+
+        BulkParser bulkParser = builder.build();
+        try {
+            if (!"-".equals(input) && !"-".equals(output)) {
+                bulkParser.run(Paths.get(input), Paths.get(output));
+                return;
+            }
+            try (Reader reader = "-".equals(input)
+                    ? new InputStreamReader(System.in, StandardCharsets.UTF_8)
+                    : Files.newBufferedReader(Paths.get(input), StandardCharsets.UTF_8);
+                    Writer writer = new BufferedWriter("-".equals(output)
+                            ? new OutputStreamWriter(System.out, StandardCharsets.UTF_8)
+                            : Files.newBufferedWriter(Paths.get(output), StandardCharsets.UTF_8), 1 << 16)) {
+                bulkParser.run(reader, writer);
+            }
+        } catch (IOException | UncheckedIOException e) {
+            System.err.println("Error: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    private static String value(final String[] args, final int index) {
+        if (index >= args.length) {
+            throw new IllegalArgumentException(args[index - 1] + " needs a value");
+        }
+        return args[index];
+    }
+
+    private static Format guessFormat(final String file) {
+        String lower = file.toLowerCase(Locale.ROOT);
+        if (lower.endsWith(".csv")) {
+            return Format.CSV;
+        } else if (lower.endsWith(".ndjson") || lower.endsWith(".jsonl")) {
+            return Format.NDJSON;
+        }
+        return Format.TEXT;
+    }
+
+    private static void usage(final String error) {
+        if (error != null) {
+            System.err.println(error);
+        }
+        System.err.println("Usage: java " + BulkParser.class.getName() + " [options] [input [output]]");
+        System.err.println();
+        System.err.println("Reads standard input and writes standard output when no files, or -, are given.");
+        System.err.println();
+        System.err.println("  --format text|csv|ndjson  the input format, by default guessed from its extension");
+        System.err.println("  --column NAME             the CSV column or JSON member holding the address");
+        System.err.println("                            (default: " + DEFAULT_ADDRESS_COLUMN + ")");
+        System.err.println("  --threads N               the number of parsing threads (default: one per core)");
+        System.err.println("  --raw                     one field per token instead of merged, cleaned fields");
+        System.err.println("  --quiet                   don't report progress on standard error");
+    }
+
+    public static final class Builder {
+        private AddressParser parser = AddressParser.getDefault();
+        private Format format = Format.TEXT;
+        private String addressColumn = DEFAULT_ADDRESS_COLUMN;
+        private boolean clean = true;
+        private int threads = Runtime.getRuntime().availableProcessors();
+        private int batchSize = 256;
+        private int maxInFlight;
+        private int chunkSize = 1 << 20;
+        private Consumer<Progress> progressListener;
+        private Duration progressInterval = Duration.ofSeconds(5);
+
+        private Builder() {
+        }
+
+        /**
+         * @param parser the parser to use. Defaults to
+         *               {@link AddressParser#getDefault()}.
+         * @return this builder.
+         */
+        public Builder parser(final AddressParser parser) {
+            this.parser = Objects.requireNonNull(parser, "parser");
+            return this;
+        }
+
+        /**
+         * @param format the input format. Defaults to {@link Format#TEXT}.
+         * @return this builder.
+         */
+        public Builder format(final Format format) {
+            this.format = Objects.requireNonNull(format, "format");
+            return this;
+        }
+
+        /**
+         * @param name the CSV column or JSON member that holds the address.
+         *             Defaults to {@code address}. CSV columns match regardless
+         *             of case if none matches exactly.
+         * @return this builder.
+         */
+        public Builder addressColumn(final String name) {
+            this.addressColumn = Objects.requireNonNull(name, "name");
+            return this;
+        }
+
+        /**
+         * @param clean whether to merge and clean fields as
+         *              {@link AddressParser#parseAndCleanAddress(String)} does,
+         *              rather than write one field per token. Defaults to
+         *              {@code true}.
+         * @return this builder.
+         */
+        public Builder clean(final boolean clean) {
+            this.clean = clean;
+            return this;
+        }
+
+        /**
+         * @param threads the number of threads to parse with. Defaults to the
+         *                number of available processors.
+         * @return this builder.
+         */
+        public Builder threads(final int threads) {
+            if (threads < 1) {
+                throw new IllegalArgumentException("There must be at least one thread: " + threads);
+            }
+            this.threads = threads;
+            return this;
+        }
+
+        /**
+         * @param records the number of records each thread parses at a time.
+         *                Defaults to 256.
+         * @return this builder.
+         */
+        public Builder batchSize(final int records) {
+            if (records < 1) {
+                throw new IllegalArgumentException("Batches must hold at least one record: " + records);
+            }
+            this.batchSize = records;
+            return this;
+        }
+
+        /**
+         * @param records about the most records that may be read but not yet
+         *                written, which bounds memory use. Defaults to four
+         *                batches per thread.
+         * @return this builder.
+         */
+        public Builder maxInFlight(final int records) {
+            if (records < 1) {
+                throw new IllegalArgumentException("At least one record must be in flight: " + records);
+            }
+            this.maxInFlight = records;
+            return this;
+        }
+
+        /**
+         * @param bytes about the size of the chunks that
+         *              {@link BulkParser#run(Path, Path)} and
+         *              {@link BulkParser#runInParts(Path, Path)} split files
+         *              into. Each chunk is extended to the end of its last
+         *              line. Defaults to 1 MiB.
+         * @return this builder.
+         */
+        public Builder chunkSize(final int bytes) {
+            if (bytes < 1) {
+                throw new IllegalArgumentException("Chunks must hold at least one byte: " + bytes);
+            }
+            this.chunkSize = bytes;
+            return this;
+        }
+
+        /**
+         * @param listener called on the thread that runs the parse with the
+         *                 progress so far, and once more at the end.
+         * @param interval about how often to call the listener.
+         * @return this builder.
+         */
+        public Builder progress(final Consumer<Progress> listener, final Duration interval) {
+            this.progressListener = Objects.requireNonNull(listener, "listener");
+            this.progressInterval = Objects.requireNonNull(interval, "interval");
+            return this;
+        }
+
+        /**
+         * @return a new bulk parser.
+         */
+        public BulkParser build() {
+            return new BulkParser(this);
+        }
+    }
+
+}
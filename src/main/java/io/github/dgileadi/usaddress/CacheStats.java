@@ -0,0 +1,76 @@
+package io.github.dgileadi.usaddress;
+
+import java.util.Locale;
+
+/**
+ * A snapshot of a parser cache's statistics.
+ */
+public final class CacheStats {
+    private final long hitCount;
+    private final long missCount;
+    private final long evictionCount;
+    private final long size;
+    private final long maxSize;
+
+    CacheStats(final long hitCount, final long missCount, final long evictionCount, final long size,
+            final long maxSize) {
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.evictionCount = evictionCount;
+        this.size = size;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * @return the number of lookups that found a cached entry.
+     */
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * @return the number of lookups that didn't find a cached entry.
+     */
+    public long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * @return the fraction of lookups that found a cached entry, or {@code 0} if
+     *         there haven't been any.
+     */
+    public double getHitRate() {
+        long lookups = hitCount + missCount;
+        return lookups == 0 ? 0 : (double) hitCount / lookups;
+    }
+
+    /**
+     * @return the number of entries evicted to make room for others.
+     */
+    public long getEvictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * @return the number of entries in the cache.
+     */
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * @return the most entries the cache holds, or {@code 0} if caching is
+     *         disabled.
+     */
+    public long getMaxSize() {
+        return maxSize;
+    }
+
+    @Override
+    public String toString() {
+        return "CacheStats[hits=" + hitCount + ", misses=" + missCount + ", hitRate="
+                + String.format(Locale.ROOT, "%.3f", getHitRate()) + ", evictions=" + evictionCount + ", size="
+                + size + "/" + maxSize + "]";
+    }
+
+}
@@ -0,0 +1,642 @@
+package io.github.dgileadi.usaddress;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Measure how well and how fast a parser labels a tagged address corpus, and
+ * check the results against regression thresholds.
+ * <p>
+ * Corpora are in the usaddress training format: an
+ * {@code <AddressCollection>} of {@code <AddressString>} elements, each of
+ * whose child elements is a token named by its label:
+ *
+ * <pre>
+ * &lt;AddressString&gt;&lt;AddressNumber&gt;123&lt;/AddressNumber&gt; &lt;StreetName&gt;Main&lt;/StreetName&gt;&lt;/AddressString&gt;
+ * </pre>
+ *
+ * The corpus is streamed, so it may be of any size. Each address is parsed
+ * with {@link AddressParser#parseAddress(String)} and its labels compared
+ * token by token, both overall and for each {@link Address.FieldType}:
+ * <ul>
+ * <li>token accuracy is the share of tokens with a label that were given
+ * it;</li>
+ * <li>sequence accuracy is the share of addresses with every token right, or
+ * for a field type, the share of addresses that have the type in which exactly
+ * the right tokens were given it.</li>
+ * </ul>
+ * An address that the parser splits into a different number of tokens than
+ * the corpus has counts as entirely wrong. Corpora tagged before the finer
+ * street labels existed can be compared with {@link Builder#coarseLabels}.
+ * Only the parsing itself is timed, and measured for allocation where the JVM
+ * supports it.
+ * <p>
+ * {@link #main(String[])} runs the same thing from the command line.
+ */
+public final class CorpusEvaluator {
+
+    /**
+     * The accuracy of the labels for one field type, or for all of them.
+     */
+    public static final class Accuracy {
+        private long tokens;
+        private long correctTokens;
+        private long sequences;
+        private long correctSequences;
+
+        Accuracy() {
+        }
+
+        /**
+         * @return the number of tokens the corpus gives this label.
+         */
+        public long getTokens() {
+            return tokens;
+        }
+
+        /**
+         * @return the share of those tokens that were given it, from 0 to 1.
+         */
+        public double getTokenAccuracy() {
+            return tokens == 0 ? 1 : (double) correctTokens / tokens;
+        }
+
+        /**
+         * @return the number of addresses the label appears in, either in the
+         *         corpus or as parsed.
+         */
+        public long getSequences() {
+            return sequences;
+        }
+
+        /**
+         * @return the share of those addresses that gave the label to exactly
+         *         the right tokens, from 0 to 1.
+         */
+        public double getSequenceAccuracy() {
+            return sequences == 0 ? 1 : (double) correctSequences / sequences;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "%,d tokens %.2f%%, %,d addresses %.2f%%", tokens,
+                    getTokenAccuracy() * 100, sequences, getSequenceAccuracy() * 100);
+        }
+    }
+
+    /**
+     * The results of evaluating a corpus.
+     */
+    public static final class Report {
+        private final Accuracy overall = new Accuracy();
+        private final Map<Address.FieldType, Accuracy> fields = new EnumMap<>(Address.FieldType.class);
+        private long misTokenized;
+        private long parseNanos;
+        private long allocatedBytes = -1;
+        private final List<String> failures = new ArrayList<>();
+
+        Report() {
+        }
+
+        /**
+         * @return the number of addresses in the corpus.
+         */
+        public long getAddresses() {
+            return overall.sequences;
+        }
+
+        /**
+         * @return the number of addresses that were split into a different
+         *         number of tokens than the corpus has.
+         */
+        public long getMisTokenized() {
+            return misTokenized;
+        }
+
+        /**
+         * @return the accuracy of all labels together.
+         */
+        public Accuracy getAccuracy() {
+            return overall;
+        }
+
+        /**
+         * @return the accuracy of each field type that's in the corpus or was
+         *         parsed, in field type order.
+         */
+        public Map<Address.FieldType, Accuracy> getFieldAccuracy() {
+            return Collections.unmodifiableMap(fields);
+        }
+
+        /**
+         * @return the number of addresses parsed per second, not counting
+         *         reading the corpus.
+         */
+        public double getAddressesPerSecond() {
+            return parseNanos == 0 ? 0 : getAddresses() * 1e9 / parseNanos;
+        }
+
+        /**
+         * @return the average number of bytes allocated by each parse, or -1 if
+         *         the JVM doesn't report allocation.
+         */
+        public long getBytesPerAddress() {
+            if (allocatedBytes < 0) {
+                return -1;
+            }
+            return getAddresses() == 0 ? 0 : allocatedBytes / getAddresses();
+        }
+
+        /**
+         * @return a description of each threshold that wasn't met, or an empty
+         *         list if they all were.
+         */
+        public List<String> getFailures() {
+            return Collections.unmodifiableList(failures);
+        }
+
+        /**
+         * @return whether every threshold was met.
+         */
+        public boolean isPassed() {
+            return failures.isEmpty();
+        }
+
+        Accuracy field(final Address.FieldType type) {
+            return fields.computeIfAbsent(type, key -> new Accuracy());
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder out = new StringBuilder();
+            out.append(String.format(Locale.ROOT, "%,d addresses (%,d mis-tokenized), %,.0f addresses/sec",
+                    getAddresses(), misTokenized, getAddressesPerSecond()));
+            if (allocatedBytes >= 0) {
+                out.append(String.format(Locale.ROOT, ", %,d bytes/address", getBytesPerAddress()));
+            }
+            out.append(String.format(Locale.ROOT, "%n%-28s %s%n", "all", overall));
+            for (Map.Entry<Address.FieldType, Accuracy> entry : fields.entrySet()) {
+                out.append(String.format(Locale.ROOT, "%-28s %s%n", entry.getKey().getLabel(), entry.getValue()));
+            }
+            for (String failure : failures) {
+                out.append("FAILED: ").append(failure).append(System.lineSeparator());
+            }
+            return out.toString();
+        }
+    }
+
+    private static final String ADDRESS_ELEMENT = "AddressString";
+
+    private final AddressParser parser;
+    private final long coarseLabels;
+    private final double minTokenAccuracy;
+    private final double minSequenceAccuracy;
+    private final Map<Address.FieldType, Double> minFieldTokenAccuracy;
+    private final double minAddressesPerSecond;
+    private final long maxBytesPerAddress;
+
+    private CorpusEvaluator(final Builder builder) {
+        this.parser = builder.parser;
+        this.coarseLabels = builder.coarseLabels;
+        this.minTokenAccuracy = builder.minTokenAccuracy;
+        this.minSequenceAccuracy = builder.minSequenceAccuracy;
+        this.minFieldTokenAccuracy = new EnumMap<>(builder.minFieldTokenAccuracy);
+        this.minAddressesPerSecond = builder.minAddressesPerSecond;
+        this.maxBytesPerAddress = builder.maxBytesPerAddress;
+    }
+
+    /**
+     * @return a new builder.
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Parse every address in a corpus and compare its labels. The input isn't
+     * closed.
+     * <p>
+     * Throughput is only meaningful once the JVM has warmed up, so evaluate a
+     * corpus once or twice before the run whose thresholds matter.
+     *
+     * @param input a tagged address corpus.
+     * @return the accuracy and speed of the parser, and any thresholds that
+     *         weren't met.
+     * @throws IOException if the input can't be read, isn't well-formed XML or
+     *                     uses a label that isn't a field type, or the model
+     *                     can't be read.
+     */
+    public Report evaluate(final InputStream input) throws IOException {
+        parser.load();
+        Report report = new Report();
+        Allocations allocations = Allocations.forCurrentThread();
+        if (allocations != null) {
+            report.allocatedBytes = 0;
+        }
+
+        XMLInputFactory factory = XMLInputFactory.newFactory();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+        XMLStreamReader reader = null;
+        try {
+            reader = factory.createXMLStreamReader(input);
+            StringBuilder address = new StringBuilder();
+            List<Address.FieldType> labels = new ArrayList<>();
+            boolean inAddress = false;
+            while (reader.hasNext()) {
+                switch (reader.next()) {
+                    case XMLStreamConstants.START_ELEMENT:
+                        if (inAddress) {
+                            labels.add(fieldType(reader));
+                        } else if (ADDRESS_ELEMENT.equals(reader.getLocalName())) {
+                            inAddress = true;
+                            address.setLength(0);
+                            labels.clear();
+                        }
+                        break;
+                    case XMLStreamConstants.CHARACTERS:
+                    case XMLStreamConstants.CDATA:
+                    case XMLStreamConstants.SPACE:
+                        if (inAddress) {
+                            address.append(reader.getText());
+                        }
+                        break;
+                    case XMLStreamConstants.END_ELEMENT:
+                        if (ADDRESS_ELEMENT.equals(reader.getLocalName())) {
+                            inAddress = false;
+                            compare(report, address.toString(), labels, allocations);
+                        }
+                        break;
+                    default:
+                        break;
+                }
+            }
+        } catch (XMLStreamException e) {
+            throw new IOException("Invalid corpus: " + e.getMessage(), e);
+        } finally {
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (XMLStreamException e) {
+                    // nothing to release
+                }
+            }
+        }
+
+        check(report);
+        return report;
+    }
+
+    private static Address.FieldType fieldType(final XMLStreamReader reader) throws IOException {
+        try {
+            return Address.FieldType.forLabel(reader.getLocalName());
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Unknown label <" + reader.getLocalName() + "> at line "
+                    + reader.getLocation().getLineNumber());
+        }
+    }
+
+    private void compare(final Report report, final String text, final List<Address.FieldType> expected,
+            final Allocations allocations) {
+        long allocated = allocations != null ? allocations.bytes() : 0;
+        long start = System.nanoTime();
+        Address address = parser.parseAddress(text);
+        report.parseNanos += System.nanoTime() - start;
+        if (allocations != null) {
+            report.allocatedBytes += allocations.bytes() - allocated;
+        }
+
+        List<Address.Field> fields = address.getFields();
+        boolean aligned = fields.size() == expected.size();
+        if (!aligned) {
+            ++report.misTokenized;
+        }
+
+        // field types that appear in the expected or actual labels, and those with any wrong token
+        long seen = 0;
+        long wrong = 0;
+        for (int i = 0; i < expected.size(); i++) {
+            Address.FieldType type = expected.get(i);
+            boolean correct = aligned && matches(type, fields.get(i).getType());
+            seen |= 1L << type.ordinal();
+            Accuracy accuracy = report.field(type);
+            ++accuracy.tokens;
+            if (correct) {
+                ++accuracy.correctTokens;
+                ++report.overall.correctTokens;
+            } else {
+                wrong |= 1L << type.ordinal();
+            }
+        }
+        report.overall.tokens += expected.size();
+        for (int i = 0; i < fields.size(); i++) {
+            Address.FieldType type = fields.get(i).getType();
+            seen |= 1L << type.ordinal();
+            if (!aligned || !matches(expected.get(i), type)) {
+                wrong |= 1L << type.ordinal();
+            }
+        }
+
+        for (Address.FieldType type : Address.FieldType.values()) {
+            if ((seen & 1L << type.ordinal()) != 0) {
+                Accuracy accuracy = report.field(type);
+                ++accuracy.sequences;
+                if ((wrong & 1L << type.ordinal()) == 0) {
+                    ++accuracy.correctSequences;
+                }
+            }
+        }
+        ++report.overall.sequences;
+        if (wrong == 0) {
+            ++report.overall.correctSequences;
+        }
+    }
+
+    private boolean matches(final Address.FieldType expected, final Address.FieldType actual) {
+        return expected == actual || (coarseLabels & 1L << expected.ordinal()) != 0
+                && actual.getLabel().startsWith(expected.getLabel());
+    }
+
+    private void check(final Report report) {
+        List<String> failures = report.failures;
+        Accuracy overall = report.overall;
+        if (overall.getTokenAccuracy() < minTokenAccuracy) {
+            failures.add(String.format(Locale.ROOT, "token accuracy %.4f is below %.4f",
+                    overall.getTokenAccuracy(), minTokenAccuracy));
+        }
+        if (overall.getSequenceAccuracy() < minSequenceAccuracy) {
+            failures.add(String.format(Locale.ROOT, "sequence accuracy %.4f is below %.4f",
+                    overall.getSequenceAccuracy(), minSequenceAccuracy));
+        }
+        for (Map.Entry<Address.FieldType, Double> entry : minFieldTokenAccuracy.entrySet()) {
+            Accuracy accuracy = report.fields.get(entry.getKey());
+            if (accuracy != null && accuracy.getTokenAccuracy() < entry.getValue()) {
+                failures.add(String.format(Locale.ROOT, "%s token accuracy %.4f is below %.4f",
+                        entry.getKey().getLabel(), accuracy.getTokenAccuracy(), entry.getValue()));
+            }
+        }
+        if (report.getAddressesPerSecond() < minAddressesPerSecond) {
+            failures.add(String.format(Locale.ROOT, "%,.0f addresses/sec is below %,.0f",
+                    report.getAddressesPerSecond(), minAddressesPerSecond));
+        }
+        if (report.allocatedBytes >= 0 && report.getBytesPerAddress() > maxBytesPerAddress) {
+            failures.add(String.format(Locale.ROOT, "%,d bytes/address is above %,d", report.getBytesPerAddress(),
+                    maxBytesPerAddress));
+        }
+    }
+
+    /**
+     * Reads the bytes allocated by the current thread, on JVMs that count
+     * them.
+     */
+    private static final class Allocations {
+        private final com.sun.management.ThreadMXBean threads;
+        private final long threadId = Thread.currentThread().getId();
+
+        private Allocations(final com.sun.management.ThreadMXBean threads) {
+            this.threads = threads;
+        }
+
+        static Allocations forCurrentThread() {
+            try {
+                ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+                if (threads instanceof com.sun.management.ThreadMXBean) {
+                    com.sun.management.ThreadMXBean allocations = (com.sun.management.ThreadMXBean) threads;
+                    if (allocations.isThreadAllocatedMemorySupported()
+                            && allocations.isThreadAllocatedMemoryEnabled()) {
+                        return new Allocations(allocations);
+                    }
+                }
+            } catch (LinkageError | UnsupportedOperationException e) {
+                // no jdk.management module
+            }
+            return null;
+        }
+
+        long bytes() {
+            return threads.getThreadAllocatedBytes(threadId);
+        }
+    }
+
+    /**
+     * Evaluate corpora from the command line. Run with {@code --help} for
+     * usage. Exits with status 1 if a threshold isn't met.
+     *
+     * @param args the command line arguments.
+     */
+    public static void main(final String[] args) {
+        Builder builder = builder();
+        int warmUps = 1;
+        List<String> files = new ArrayList<>();
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--min-token-accuracy":
+                        builder.minTokenAccuracy(Double.parseDouble(value(args, ++i)));
+                        break;
+                    case "--min-sequence-accuracy":
+                        builder.minSequenceAccuracy(Double.parseDouble(value(args, ++i)));
+                        break;
+                    case "--min-rate":
+                        builder.minAddressesPerSecond(Double.parseDouble(value(args, ++i)));
+                        break;
+                    case "--max-bytes":
+                        builder.maxBytesPerAddress(Long.parseLong(value(args, ++i)));
+                        break;
+                    case "--coarse":
+                        for (String label : value(args, ++i).split(",")) {
+                            builder.coarseLabels(Address.FieldType.forLabel(label.trim()));
+                        }
+                        break;
+                    case "--warm-ups":
+                        warmUps = Integer.parseInt(value(args, ++i));
+                        break;
+                    case "--help":
+                        usage(null);
+                        return;
+                    default:
+                        if (args[i].startsWith("--")) {
+                            throw new IllegalArgumentException("Unknown option " + args[i]);
+                        }
+                        files.add(args[i]);
+                }
+            }
+            if (files.isEmpty()) {
+                throw new IllegalArgumentException("No corpus given");
+            }
+        } catch (IllegalArgumentException e) {
+            usage(e.getMessage());
+            System.exit(2);
+            return;
+        }
+
+        CorpusEvaluator evaluator = builder.build();
+        boolean passed = true;
+        try {
+            for (String file : files) {
+                Report report = null;
+                for (int round = 0; round <= warmUps; round++) {
+                    try (InputStream input = Files.newInputStream(Paths.get(file))) {
+                        report = evaluator.evaluate(input);
+                    }
+                }
+                System.out.println(file + ": " + report);
+                passed &= report.isPassed();
+            }
+        } catch (IOException e) {
+            System.err.println("Error: " + e.getMessage());
+            System.exit(1);
+        }
+        if (!passed) {
+            System.exit(1);
+        }
+    }
+
+    private static String value(final String[] args, final int index) {
+        if (index >= args.length) {
+            throw new IllegalArgumentException(args[index - 1] + " needs a value");
+        }
+        return args[index];
+    }
+
+    private static void usage(final String error) {
+        if (error != null) {
+            System.err.println(error);
+        }
+        System.err.println("Usage: java " + CorpusEvaluator.class.getName() + " [options] corpus.xml...");
+        System.err.println();
+        System.err.println("  --coarse LABEL,...         labels that match any label starting with them, such as");
+        System.err.println("                             StreetName for older corpora");
+        System.err.println("  --min-token-accuracy X     fail if fewer than this share of tokens are right");
+        System.err.println("  --min-sequence-accuracy X  fail if fewer than this share of addresses are right");
+        System.err.println("  --min-rate N               fail if fewer addresses than this are parsed per second");
+        System.err.println("  --max-bytes N              fail if parsing allocates more bytes than this per address");
+        System.err.println("  --warm-ups N               evaluate each corpus this many times first (default: 1)");
+    }
+
+    public static final class Builder {
+        private AddressParser parser = AddressParser.getDefault();
+        private long coarseLabels;
+        private double minTokenAccuracy;
+        private double minSequenceAccuracy;
+        private final Map<Address.FieldType, Double> minFieldTokenAccuracy = new EnumMap<>(Address.FieldType.class);
+        private double minAddressesPerSecond;
+        private long maxBytesPerAddress = Long.MAX_VALUE;
+
+        private Builder() {
+        }
+
+        /**
+         * @param parser the parser to evaluate. Defaults to
+         *               {@link AddressParser#getDefault()}.
+         * @return this builder.
+         */
+        public Builder parser(final AddressParser parser) {
+            this.parser = Objects.requireNonNull(parser, "parser");
+            return this;
+        }
+
+        /**
+         * @param types corpus labels that also match any label that starts
+         *              with theirs. For example, a corpus token labeled
+         *              {@code StreetName} matches a parsed
+         *              {@code StreetNamePostType} if {@code STREET_NAME} is
+         *              coarse.
+         * @return this builder.
+         */
+        public Builder coarseLabels(final Address.FieldType... types) {
+            for (Address.FieldType type : types) {
+                coarseLabels |= 1L << type.ordinal();
+            }
+            return this;
+        }
+
+        /**
+         * @param accuracy the least share of all tokens, from 0 to 1, that must
+         *                 be labeled right.
+         * @return this builder.
+         */
+        public Builder minTokenAccuracy(final double accuracy) {
+            this.minTokenAccuracy = share(accuracy);
+            return this;
+        }
+
+        /**
+         * @param type     a field type.
+         * @param accuracy the least share of the tokens of that type, from 0 to
+         *                 1, that must be labeled right.
+         * @return this builder.
+         */
+        public Builder minTokenAccuracy(final Address.FieldType type, final double accuracy) {
+            minFieldTokenAccuracy.put(Objects.requireNonNull(type, "type"), share(accuracy));
+            return this;
+        }
+
+        /**
+         * @param accuracy the least share of addresses, from 0 to 1, that must
+         *                 have every token labeled right.
+         * @return this builder.
+         */
+        public Builder minSequenceAccuracy(final double accuracy) {
+            this.minSequenceAccuracy = share(accuracy);
+            return this;
+        }
+
+        /**
+         * @param rate the fewest addresses that must be parsed per second.
+         * @return this builder.
+         */
+        public Builder minAddressesPerSecond(final double rate) {
+            if (rate < 0) {
+                throw new IllegalArgumentException("The rate can't be negative: " + rate);
+            }
+            this.minAddressesPerSecond = rate;
+            return this;
+        }
+
+        /**
+         * @param bytes the most bytes each parse may allocate on average.
+         *              Ignored if the JVM doesn't report allocation.
+         * @return this builder.
+         */
+        public Builder maxBytesPerAddress(final long bytes) {
+            if (bytes < 0) {
+                throw new IllegalArgumentException("The bytes can't be negative: " + bytes);
+            }
+            this.maxBytesPerAddress = bytes;
+            return this;
+        }
+
+        /**
+         * @return a new evaluator.
+         */
+        public CorpusEvaluator build() {
+            return new CorpusEvaluator(this);
+        }
+
+        private static double share(final double accuracy) {
+            if (!(accuracy >= 0 && accuracy <= 1)) {
+                throw new IllegalArgumentException("Accuracy must be from 0 to 1: " + accuracy);
+            }
+            return accuracy;
+        }
+    }
+
+}
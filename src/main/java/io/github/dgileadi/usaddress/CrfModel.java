@@ -0,0 +1,356 @@
+package io.github.dgileadi.usaddress;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A first-order linear-chain CRF read from a CRFsuite model file, such as
+ * {@code usaddr.crfsuite}, together with a Viterbi decoder that labels items
+ * the same way CRFsuite's own tagger does.
+ * <p>
+ * The model file is laid out as a header followed by a feature table, two
+ * constant quark databases (labels and attributes) and two feature-reference
+ * tables. All integers are little-endian. Only the feature table and the two
+ * dictionaries are needed for tagging.
+ */
+final class CrfModel {
+    private static final int HEADER_SIZE = 48;
+    private static final int FEATURE_SIZE = 20;
+    private static final int CQDB_HEADER_SIZE = 24 + 256 * 8;
+    private static final int STATE_FEATURE = 0;
+    private static final int TRANSITION_FEATURE = 1;
+
+    private final String[] labels;
+    private final String[] attributeNames;
+    private final Map<String, Integer> attributes;
+    // state weights in compressed rows: the features of attribute a are at
+    // [attributeOffsets[a], attributeOffsets[a + 1])
+    private final int[] attributeOffsets;
+    private final int[] stateLabels;
+    private final double[] stateWeights;
+    // transition weights, indexed by [from * labels.length + to]
+    private final double[] transitions;
+
+    private CrfModel(final String[] labels, final String[] attributeNames, final Map<String, Integer> attributes,
+            final int[] attributeOffsets, final int[] stateLabels, final double[] stateWeights,
+            final double[] transitions) {
+        this.labels = labels;
+        this.attributeNames = attributeNames;
+        this.attributes = attributes;
+        this.attributeOffsets = attributeOffsets;
+        this.stateLabels = stateLabels;
+        this.stateWeights = stateWeights;
+        this.transitions = transitions;
+    }
+
+    /**
+     * Read a model from the contents of a CRFsuite model file.
+     *
+     * @param buffer the model file contents. Its position, limit and byte order
+     *               are left untouched.
+     * @return the model.
+     * @throws IOException if the buffer doesn't hold a valid CRFsuite model.
+     */
+    static CrfModel read(final ByteBuffer buffer) throws IOException {
+        ByteBuffer model = buffer.slice().order(ByteOrder.LITTLE_ENDIAN);
+        try {
+            if (model.remaining() < HEADER_SIZE || !"lCRF".equals(chunkId(model, 0))
+                    || !"FOMC".equals(chunkId(model, 8))) {
+                throw new IOException("Not a CRFsuite model");
+            }
+            int version = model.getInt(12);
+            if (version != 100) {
+                throw new IOException("Unsupported CRFsuite model version " + version);
+            }
+
+            String[] labels = readDictionary(model, model.getInt(32), model.getInt(20));
+            String[] attributeNames = readDictionary(model, model.getInt(36), model.getInt(24));
+            Map<String, Integer> attributes = new HashMap<>(attributeNames.length * 2);
+            for (int i = 0; i < attributeNames.length; i++) {
+                attributes.put(attributeNames[i], i);
+            }
+
+            int offset = model.getInt(28);
+            expectChunk(model, offset, "FEAT");
+            int numFeatures = model.getInt(offset + 8);
+            int start = offset + 12;
+
+            int[] attributeOffsets = new int[attributeNames.length + 1];
+            for (int i = 0; i < numFeatures; i++) {
+                int feature = start + i * FEATURE_SIZE;
+                if (model.getInt(feature) == STATE_FEATURE) {
+                    ++attributeOffsets[checkIndex(model.getInt(feature + 4), attributeNames.length) + 1];
+                }
+            }
+            for (int i = 0; i < attributeNames.length; i++) {
+                attributeOffsets[i + 1] += attributeOffsets[i];
+            }
+
+            int[] fill = attributeOffsets.clone();
+            int[] stateLabels = new int[attributeOffsets[attributeNames.length]];
+            double[] stateWeights = new double[stateLabels.length];
+            double[] transitions = new double[labels.length * labels.length];
+            for (int i = 0; i < numFeatures; i++) {
+                int feature = start + i * FEATURE_SIZE;
+                int type = model.getInt(feature);
+                int src = model.getInt(feature + 4);
+                int dst = checkIndex(model.getInt(feature + 8), labels.length);
+                double weight = model.getDouble(feature + 12);
+                if (type == STATE_FEATURE) {
+                    int index = fill[src]++;
+                    stateLabels[index] = dst;
+                    stateWeights[index] = weight;
+                } else if (type == TRANSITION_FEATURE) {
+                    transitions[checkIndex(src, labels.length) * labels.length + dst] = weight;
+                } else {
+                    throw new IOException("Unknown CRFsuite feature type " + type);
+                }
+            }
+
+            return new CrfModel(labels, attributeNames, attributes, attributeOffsets, stateLabels, stateWeights,
+                    transitions);
+        } catch (IndexOutOfBoundsException | BufferUnderflowException e) {
+            throw new IOException("Truncated CRFsuite model", e);
+        }
+    }
+
+    /**
+     * @return the number of labels the model can assign.
+     */
+    int getLabelCount() {
+        return labels.length;
+    }
+
+    /**
+     * @param id a label id.
+     * @return the name of the label, such as {@code AddressNumber}.
+     */
+    String getLabel(final int id) {
+        return labels[id];
+    }
+
+    /**
+     * @return the number of attributes in the model's dictionary.
+     */
+    int getAttributeCount() {
+        return attributeNames.length;
+    }
+
+    /**
+     * @param id an attribute id.
+     * @return the name of the attribute, such as {@code previous:word:main}.
+     */
+    String getAttributeName(final int id) {
+        return attributeNames[id];
+    }
+
+    /**
+     * @param name an attribute name, such as {@code word:main}.
+     * @return the id of the attribute, or {@code -1} if the model doesn't know
+     *         it.
+     */
+    int getAttributeId(final String name) {
+        Integer id = attributes.get(name);
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * Add the state weights of an attribute, present with a value of 1, to the
+     * label scores of one position.
+     *
+     * @param attribute the attribute id.
+     * @param state     the state scores.
+     * @param offset    the index of the position's first label in {@code state}.
+     */
+    void addStateWeights(final int attribute, final double[] state, final int offset) {
+        for (int i = attributeOffsets[attribute]; i < attributeOffsets[attribute + 1]; i++) {
+            state[offset + stateLabels[i]] += stateWeights[i];
+        }
+    }
+
+    /**
+     * Find the most likely labels for a sequence. This mirrors
+     * {@code crf1dc_viterbi}, including its tie-breaking in favor of the lowest
+     * label id, so that the results are identical to CRFsuite's.
+     *
+     * @param state  the state score of each label at each position, indexed by
+     *               {@code [position * getLabelCount() + label]}.
+     * @param length the number of positions.
+     * @return the label id of each position.
+     */
+    int[] tag(final double[] state, final int length) {
+        int[] path = new int[length];
+        tag(state, length, new double[2 * labels.length], new int[length * labels.length], path);
+        return path;
+    }
+
+    /**
+     * Find the most likely labels for a sequence, using caller-supplied scratch
+     * space instead of allocating it.
+     *
+     * @param state  the state score of each label at each position.
+     * @param length the number of positions.
+     * @param scores scratch space for at least {@code 2 * getLabelCount()}
+     *               scores.
+     * @param back   scratch space for at least
+     *               {@code length * getLabelCount()} back pointers.
+     * @param path   receives the label id of each position.
+     */
+    void tag(final double[] state, final int length, final double[] scores, final int[] back, final int[] path) {
+        if (length == 0) {
+            return;
+        }
+
+        int numLabels = labels.length;
+        int previous = numLabels;
+        int current = 0;
+        System.arraycopy(state, 0, scores, current, numLabels);
+
+        for (int t = 1; t < length; t++) {
+            previous = current;
+            current = numLabels - current;
+            for (int j = 0; j < numLabels; j++) {
+                double maxScore = -Double.MAX_VALUE;
+                int argmax = 0;
+                for (int i = 0; i < numLabels; i++) {
+                    double score = scores[previous + i] + transitions[i * numLabels + j];
+                    if (maxScore < score) {
+                        maxScore = score;
+                        argmax = i;
+                    }
+                }
+                back[t * numLabels + j] = argmax;
+                scores[current + j] = maxScore + state[t * numLabels + j];
+            }
+        }
+
+        double maxScore = -Double.MAX_VALUE;
+        for (int i = 0; i < numLabels; i++) {
+            if (maxScore < scores[current + i]) {
+                maxScore = scores[current + i];
+                path[length - 1] = i;
+            }
+        }
+        for (int t = length - 2; t >= 0; t--) {
+            path[t] = back[(t + 1) * numLabels + path[t + 1]];
+        }
+    }
+
+    /**
+     * Find the most likely labels for a sequence as
+     * {@link #tag(double[], int, double[], int[], int[])} does, but keep the
+     * best score of every label at every position so that when only the last
+     * positions of the sequence change, the next call can resume from the
+     * first changed one.
+     *
+     * @param state   the state score of each label at each position.
+     * @param length  the number of positions.
+     * @param from    the first position whose state scores changed since the
+     *                last call with these buffers. The scores and back pointers
+     *                of the positions before it are reused.
+     * @param forward the best score of a path ending in each label at each
+     *                position. It must hold at least
+     *                {@code length * getLabelCount()} scores.
+     * @param back    the back pointers, of the same size.
+     * @param path    receives the label id of each position.
+     */
+    void tag(final double[] state, final int length, final int from, final double[] forward, final int[] back,
+            final int[] path) {
+        if (length == 0) {
+            return;
+        }
+
+        int numLabels = labels.length;
+        int start = from;
+        if (start == 0) {
+            System.arraycopy(state, 0, forward, 0, numLabels);
+            start = 1;
+        }
+        for (int t = start; t < length; t++) {
+            int previous = (t - 1) * numLabels;
+            int current = t * numLabels;
+            for (int j = 0; j < numLabels; j++) {
+                double maxScore = -Double.MAX_VALUE;
+                int argmax = 0;
+                for (int i = 0; i < numLabels; i++) {
+                    double score = forward[previous + i] + transitions[i * numLabels + j];
+                    if (maxScore < score) {
+                        maxScore = score;
+                        argmax = i;
+                    }
+                }
+                back[current + j] = argmax;
+                forward[current + j] = maxScore + state[current + j];
+            }
+        }
+
+        int last = (length - 1) * numLabels;
+        double maxScore = -Double.MAX_VALUE;
+        for (int i = 0; i < numLabels; i++) {
+            if (maxScore < forward[last + i]) {
+                maxScore = forward[last + i];
+                path[length - 1] = i;
+            }
+        }
+        for (int t = length - 2; t >= 0; t--) {
+            path[t] = back[(t + 1) * numLabels + path[t + 1]];
+        }
+    }
+
+    /**
+     * Read every key of a constant quark database in id order, using its
+     * backward (id to key) table.
+     */
+    private static String[] readDictionary(final ByteBuffer model, final int offset, final int expectedSize)
+            throws IOException {
+        expectChunk(model, offset, "CQDB");
+        int size = model.getInt(offset + 16);
+        int backwardOffset = model.getInt(offset + 20);
+        if (size != expectedSize || backwardOffset < CQDB_HEADER_SIZE) {
+            throw new IOException("Corrupt CRFsuite dictionary");
+        }
+
+        String[] keys = new String[size];
+        for (int i = 0; i < size; i++) {
+            int record = offset + model.getInt(offset + backwardOffset + i * 4);
+            int id = model.getInt(record);
+            int keySize = model.getInt(record + 4);
+            if (id != i || keySize < 1) {
+                throw new IOException("Corrupt CRFsuite dictionary");
+            }
+            // the stored key includes its null terminator
+            byte[] key = new byte[keySize - 1];
+            model.position(record + 8);
+            model.get(key);
+            keys[i] = new String(key, StandardCharsets.UTF_8);
+        }
+        return keys;
+    }
+
+    private static void expectChunk(final ByteBuffer model, final int offset, final String id) throws IOException {
+        if (!id.equals(chunkId(model, offset))) {
+            throw new IOException("Missing " + id + " chunk in CRFsuite model");
+        }
+    }
+
+    private static String chunkId(final ByteBuffer model, final int offset) {
+        byte[] id = new byte[4];
+        for (int i = 0; i < id.length; i++) {
+            id[i] = model.get(offset + i);
+        }
+        return new String(id, StandardCharsets.US_ASCII);
+    }
+
+    private static int checkIndex(final int index, final int size) throws IOException {
+        if (index < 0 || index >= size) {
+            throw new IOException("Corrupt CRFsuite feature");
+        }
+        return index;
+    }
+
+}
@@ -0,0 +1,133 @@
+package io.github.dgileadi.usaddress;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads and writes RFC 4180 comma-separated records, where fields may be
+ * quoted to hold commas, quotes and line breaks.
+ */
+final class Csv {
+    private final Reader reader;
+    private final char[] buffer = new char[8192];
+    private int position;
+    private int limit;
+    private final StringBuilder field = new StringBuilder();
+
+    /**
+     * @param reader the input. It's read in large blocks, so it needn't be
+     *               buffered.
+     */
+    Csv(final Reader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * Read the next record. Records end with a line break outside of quotes, or
+     * at the end of the input.
+     *
+     * @return the fields of the record, or {@code null} at the end of the input.
+     * @throws IOException if the input can't be read.
+     */
+    List<String> readRecord() throws IOException {
+        int c = read();
+        if (c < 0) {
+            return null;
+        }
+
+        List<String> fields = new ArrayList<>();
+        field.setLength(0);
+        boolean quoted = false;
+        boolean fieldStart = true;
+        while (true) {
+            if (c < 0) {
+                break;
+            } else if (quoted) {
+                if (c == '"') {
+                    if (peek() == '"') {
+                        read();
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    field.append((char) c);
+                }
+            } else if (c == '"' && fieldStart) {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+                fieldStart = true;
+                c = read();
+                continue;
+            } else if (c == '\n') {
+                break;
+            } else if (c == '\r') {
+                if (peek() == '\n') {
+                    read();
+                }
+                break;
+            } else {
+                field.append((char) c);
+            }
+            fieldStart = false;
+            c = read();
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    /**
+     * Append a field, quoting it if it holds a comma, quote or line break.
+     *
+     * @param out   where to append it.
+     * @param value the field value.
+     */
+    static void appendField(final StringBuilder out, final String value) {
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            out.append(value);
+            return;
+        }
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                out.append('"');
+            }
+            out.append(c);
+        }
+        out.append('"');
+    }
+
+    private int read() throws IOException {
+        int c = peek();
+        if (c >= 0) {
+            ++position;
+        }
+        return c;
+    }
+
+    private int peek() throws IOException {
+        if (position == limit) {
+            int count = reader.read(buffer);
+            while (count == 0) {
+                count = reader.read(buffer);
+            }
+            if (count < 0) {
+                return -1;
+            }
+            position = 0;
+            limit = count;
+        }
+        return buffer[position];
+    }
+
+}
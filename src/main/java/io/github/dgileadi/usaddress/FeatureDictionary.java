@@ -0,0 +1,336 @@
+package io.github.dgileadi.usaddress;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Integer ids for the features of a single token, precomputed from a model's
+ * attribute dictionary.
+ * <p>
+ * The model names each attribute after a token feature, optionally prefixed
+ * with {@code previous:} or {@code next:} when it describes a neighbor, such as
+ * {@code word:main} or {@code previous:word:main}. Here each unprefixed feature
+ * gets a <em>base id</em>, and each base id maps to up to three model
+ * attributes: one for the token itself and one for each neighbor. That way a
+ * token is featurized once, into an array of base ids, and its neighbors reuse
+ * the same array. Features the model doesn't know under any prefix, such as
+ * unseen words, have no base id and are dropped.
+ */
+final class FeatureDictionary {
+    private static final String PREVIOUS = "previous:";
+    private static final String NEXT = "next:";
+    private static final String WORD = "word:";
+    private static final String DIGITS = "digits:";
+    private static final String TRAILING_ZEROS = "trailing.zeros:";
+    private static final String DIGIT_LENGTH = "length:d:";
+    private static final String WORD_LENGTH = "length:w:";
+    private static final String ENDS_IN_PUNC = "endsinpunc:";
+
+    static final int ALL_DIGITS = 0;
+    static final int SOME_DIGITS = 1;
+    static final int NO_DIGITS = 2;
+    private static final String[] DIGITS_VALUES = { "all_digits", "some_digits", "no_digits" };
+
+    private final CrfModel model;
+
+    // indexed by base id
+    private final String[] names;
+    private final int[] current;
+    private final int[] previous;
+    private final int[] next;
+
+    private final Map<String, Integer> words;
+    private final int[] digits;
+    private final int[] trailingZeros;
+    private final int[] digitLengths;
+    private final int[] wordLengths;
+    private final char[] puncChars;
+    private final int[] puncIds;
+    private final int abbrev;
+    private final int directional;
+    private final int streetName;
+    private final int hasVowels;
+
+    // model attribute ids of the features that mark the ends of the address
+    private final int addressStart;
+    private final int previousAddressStart;
+    private final int addressEnd;
+    private final int nextAddressEnd;
+
+    FeatureDictionary(final CrfModel model) {
+        this.model = model;
+
+        Map<String, Integer> baseIds = new HashMap<>();
+        List<int[]> attributes = new ArrayList<>();
+        for (int attribute = 0; attribute < model.getAttributeCount(); attribute++) {
+            String name = model.getAttributeName(attribute);
+            int prefix = 0;
+            String base = name;
+            if (name.startsWith(PREVIOUS)) {
+                prefix = 1;
+                base = name.substring(PREVIOUS.length());
+            } else if (name.startsWith(NEXT)) {
+                prefix = 2;
+                base = name.substring(NEXT.length());
+            }
+            Integer id = baseIds.get(base);
+            if (id == null) {
+                id = attributes.size();
+                baseIds.put(base, id);
+                attributes.add(new int[] { -1, -1, -1 });
+            }
+            attributes.get(id)[prefix] = attribute;
+        }
+
+        int size = attributes.size();
+        names = new String[size];
+        current = new int[size];
+        previous = new int[size];
+        next = new int[size];
+        for (Map.Entry<String, Integer> entry : baseIds.entrySet()) {
+            int id = entry.getValue();
+            names[id] = entry.getKey();
+            current[id] = attributes.get(id)[0];
+            previous[id] = attributes.get(id)[1];
+            next[id] = attributes.get(id)[2];
+        }
+
+        words = new HashMap<>();
+        List<Integer> zeros = new ArrayList<>();
+        List<Integer> digitLengthIds = new ArrayList<>();
+        List<Integer> wordLengthIds = new ArrayList<>();
+        StringBuilder punc = new StringBuilder();
+        List<Integer> puncIdList = new ArrayList<>();
+        for (int id = 0; id < size; id++) {
+            String name = names[id];
+            if (name.startsWith(WORD)) {
+                words.put(name.substring(WORD.length()), id);
+            } else if (name.startsWith(TRAILING_ZEROS)) {
+                String value = name.substring(TRAILING_ZEROS.length());
+                if (value.chars().allMatch(c -> c == '0')) {
+                    set(zeros, value.length(), id);
+                }
+            } else if (name.startsWith(DIGIT_LENGTH)) {
+                set(digitLengthIds, parseLength(name.substring(DIGIT_LENGTH.length())), id);
+            } else if (name.startsWith(WORD_LENGTH)) {
+                set(wordLengthIds, parseLength(name.substring(WORD_LENGTH.length())), id);
+            } else if (name.startsWith(ENDS_IN_PUNC) && name.length() == ENDS_IN_PUNC.length() + 1) {
+                punc.append(name.charAt(ENDS_IN_PUNC.length()));
+                puncIdList.add(id);
+            }
+        }
+        digits = new int[DIGITS_VALUES.length];
+        for (int i = 0; i < DIGITS_VALUES.length; i++) {
+            digits[i] = baseId(baseIds, DIGITS + DIGITS_VALUES[i]);
+        }
+        trailingZeros = toArray(zeros);
+        digitLengths = toArray(digitLengthIds);
+        wordLengths = toArray(wordLengthIds);
+        puncChars = punc.toString().toCharArray();
+        puncIds = toArray(puncIdList);
+        abbrev = baseId(baseIds, "abbrev");
+        directional = baseId(baseIds, "directional");
+        streetName = baseId(baseIds, "street_name");
+        hasVowels = baseId(baseIds, "has.vowels");
+
+        addressStart = model.getAttributeId("address.start");
+        previousAddressStart = model.getAttributeId(PREVIOUS + "address.start");
+        addressEnd = model.getAttributeId("address.end");
+        nextAddressEnd = model.getAttributeId(NEXT + "address.end");
+    }
+
+    /**
+     * @param abbrev a lowercase word without periods, such as {@code st}.
+     * @return the base id of {@code word:<abbrev>}, or {@code -1}.
+     */
+    int word(final String abbrev) {
+        Integer id = words.get(abbrev);
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * @param kind one of {@link #ALL_DIGITS}, {@link #SOME_DIGITS} or
+     *             {@link #NO_DIGITS}.
+     * @return the base id of {@code digits:<kind>}, or {@code -1}.
+     */
+    int digits(final int kind) {
+        return digits[kind];
+    }
+
+    /**
+     * @return the base id of {@code trailing.zeros:} followed by the given
+     *         number of zeros, or {@code -1}.
+     */
+    int trailingZeros(final int count) {
+        return lookup(trailingZeros, count);
+    }
+
+    /**
+     * @return the base id of {@code length:d:<length>}, or {@code -1}.
+     */
+    int digitLength(final int length) {
+        return lookup(digitLengths, length);
+    }
+
+    /**
+     * @return the base id of {@code length:w:<length>}, or {@code -1}.
+     */
+    int wordLength(final int length) {
+        return lookup(wordLengths, length);
+    }
+
+    /**
+     * @return the base id of {@code endsinpunc:<punc>}, or {@code -1}.
+     */
+    int endsInPunc(final char punc) {
+        for (int i = 0; i < puncChars.length; i++) {
+            if (puncChars[i] == punc) {
+                return puncIds[i];
+            }
+        }
+        return -1;
+    }
+
+    int abbrev() {
+        return abbrev;
+    }
+
+    int directional() {
+        return directional;
+    }
+
+    int streetName() {
+        return streetName;
+    }
+
+    int hasVowels() {
+        return hasVowels;
+    }
+
+    /**
+     * @param id a base id.
+     * @return the feature name, such as {@code word:main}.
+     */
+    String getName(final int id) {
+        return names[id];
+    }
+
+    /**
+     * @return the model the features are for.
+     */
+    CrfModel getModel() {
+        return model;
+    }
+
+    /**
+     * Compute the state score of every label at every position of an address.
+     * The attributes of each position are visited in the same order the
+     * original string-built items listed them, so the scores are bit-for-bit
+     * the ones CRFsuite computes.
+     *
+     * @param tokens the base ids of each token's features.
+     * @return the scores, indexed by {@code [position * labelCount + label]}.
+     */
+    double[] stateScores(final int[][] tokens) {
+        double[] state = new double[tokens.length * model.getLabelCount()];
+        stateScores(tokens, state);
+        return state;
+    }
+
+    /**
+     * Compute the state scores into a reusable buffer.
+     *
+     * @param tokens the base ids of each token's features.
+     * @param state  receives the scores. It must hold at least
+     *               {@code tokens.length * labelCount} of them; any beyond
+     *               that are left untouched.
+     */
+    void stateScores(final int[][] tokens, final double[] state) {
+        stateScores(tokens, tokens.length, 0, state);
+    }
+
+    /**
+     * Recompute the state scores of the last positions of an address, leaving
+     * those of the positions before them as they are.
+     *
+     * @param tokens the base ids of each token's features. Only the first
+     *               {@code length} are read.
+     * @param length the number of tokens in the address.
+     * @param from   the first position to compute.
+     * @param state  receives the scores.
+     */
+    void stateScores(final int[][] tokens, final int length, final int from, final double[] state) {
+        int numLabels = model.getLabelCount();
+        Arrays.fill(state, from * numLabels, length * numLabels, 0);
+        for (int t = from; t < length; t++) {
+            int offset = t * numLabels;
+            addStateWeights(current, tokens[t], state, offset);
+            if (t > 0) {
+                addStateWeights(previous, tokens[t - 1], state, offset);
+                if (t == 1) {
+                    addStateWeights(previousAddressStart, state, offset);
+                }
+            }
+            if (t < length - 1) {
+                addStateWeights(next, tokens[t + 1], state, offset);
+            }
+            if (t == 0) {
+                addStateWeights(addressStart, state, offset);
+            }
+            if (t == length - 1) {
+                addStateWeights(addressEnd, state, offset);
+            }
+            if (t == length - 2) {
+                addStateWeights(nextAddressEnd, state, offset);
+            }
+        }
+    }
+
+    private void addStateWeights(final int[] attributes, final int[] features, final double[] state,
+            final int offset) {
+        for (int feature : features) {
+            addStateWeights(attributes[feature], state, offset);
+        }
+    }
+
+    private void addStateWeights(final int attribute, final double[] state, final int offset) {
+        if (attribute >= 0) {
+            model.addStateWeights(attribute, state, offset);
+        }
+    }
+
+    private static int baseId(final Map<String, Integer> baseIds, final String name) {
+        Integer id = baseIds.get(name);
+        return id == null ? -1 : id;
+    }
+
+    private static int parseLength(final String value) {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static void set(final List<Integer> ids, final int index, final int id) {
+        if (index < 0) {
+            return;
+        }
+        while (ids.size() <= index) {
+            ids.add(-1);
+        }
+        ids.set(index, id);
+    }
+
+    private static int[] toArray(final List<Integer> ids) {
+        return ids.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private static int lookup(final int[] ids, final int index) {
+        return index < ids.length ? ids[index] : -1;
+    }
+
+}
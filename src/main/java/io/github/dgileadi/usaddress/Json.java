@@ -0,0 +1,278 @@
+package io.github.dgileadi.usaddress;
+
+import java.util.regex.Pattern;
+
+/**
+ * Just enough JSON to read a string member of an object and to write strings
+ * and addresses, so that bulk parsing and the server don't need a JSON
+ * library.
+ */
+final class Json {
+    private static final int MAX_DEPTH = 256;
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+    private static final Pattern NUMBER = Pattern.compile("-?(0|[1-9][0-9]*)(\\.[0-9]+)?([eE][-+]?[0-9]+)?");
+
+    private final String json;
+    private int position;
+
+    private Json(final String json) {
+        this.json = json;
+    }
+
+    /**
+     * Read a top-level member of a JSON object.
+     *
+     * @param object the text of a JSON object.
+     * @param name   the member name.
+     * @return the member's value, or {@code null} if the object has no such
+     *         member or its value isn't a string.
+     * @throws IllegalArgumentException if the text isn't a JSON object.
+     */
+    static String getString(final String object, final String name) {
+        return new Json(object).readObject(name);
+    }
+
+    /**
+     * Append a string as a quoted and escaped JSON string.
+     *
+     * @param out   where to append it.
+     * @param value the string.
+     */
+    static void appendString(final StringBuilder out, final String value) {
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    out.append("\\\"");
+                    break;
+                case '\\':
+                    out.append("\\\\");
+                    break;
+                case '\n':
+                    out.append("\\n");
+                    break;
+                case '\r':
+                    out.append("\\r");
+                    break;
+                case '\t':
+                    out.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20 || c == '\u2028' || c == '\u2029') {
+                        out.append("\\u").append(HEX[c >> 12]).append(HEX[(c >> 8) & 0xf])
+                                .append(HEX[(c >> 4) & 0xf]).append(HEX[c & 0xf]);
+                    } else {
+                        out.append(c);
+                    }
+            }
+        }
+        out.append('"');
+    }
+
+    /**
+     * Append an address's {@code addressType} and {@code addressFields}
+     * members, without the braces around them.
+     *
+     * @param out     where to append them.
+     * @param address the address.
+     */
+    static void appendAddressMembers(final StringBuilder out, final Address address) {
+        out.append("\"addressType\":");
+        appendString(out, address.getType().name());
+        out.append(",\"addressFields\":[");
+        boolean first = true;
+        for (Address.Field field : address.getFields()) {
+            out.append(first ? "{\"type\":" : ",{\"type\":");
+            appendString(out, field.getType().getLabel());
+            out.append(",\"value\":");
+            appendString(out, field.getValue());
+            out.append('}');
+            first = false;
+        }
+        out.append(']');
+    }
+
+    private String readObject(final String name) {
+        skipWhitespace();
+        expect('{');
+        String value = null;
+        boolean found = false;
+        skipWhitespace();
+        if (!consume('}')) {
+            do {
+                skipWhitespace();
+                String member = readString();
+                skipWhitespace();
+                expect(':');
+                skipWhitespace();
+                if (!found && member.equals(name)) {
+                    found = true;
+                    value = peek() == '"' ? readString() : null;
+                    if (value == null) {
+                        skipValue(1);
+                    }
+                } else {
+                    skipValue(1);
+                }
+                skipWhitespace();
+            } while (consume(','));
+            expect('}');
+        }
+        skipWhitespace();
+        if (position < json.length()) {
+            throw error("Unexpected text after the object");
+        }
+        return value;
+    }
+
+    private void skipValue(final int depth) {
+        if (depth > MAX_DEPTH) {
+            throw error("Too deeply nested");
+        }
+        char c = peek();
+        if (c == '"') {
+            readString();
+        } else if (c == '{' || c == '[') {
+            char close = c == '{' ? '}' : ']';
+            ++position;
+            skipWhitespace();
+            if (!consume(close)) {
+                do {
+                    skipWhitespace();
+                    if (close == '}') {
+                        readString();
+                        skipWhitespace();
+                        expect(':');
+                        skipWhitespace();
+                    }
+                    skipValue(depth + 1);
+                    skipWhitespace();
+                } while (consume(','));
+                expect(close);
+            }
+        } else {
+            int start = position;
+            while (position < json.length() && "{}[],: \t\r\n\"".indexOf(json.charAt(position)) < 0) {
+                ++position;
+            }
+            String literal = json.substring(start, position);
+            if (!literal.equals("true") && !literal.equals("false") && !literal.equals("null")
+                    && !NUMBER.matcher(literal).matches()) {
+                position = start;
+                throw error("Invalid value");
+            }
+        }
+    }
+
+    private String readString() {
+        expect('"');
+        int start = position;
+        StringBuilder value = null;
+        while (true) {
+            if (position >= json.length()) {
+                throw error("Unterminated string");
+            }
+            char c = json.charAt(position);
+            if (c == '"') {
+                String end = json.substring(start, position++);
+                return value == null ? end : value.append(end).toString();
+            } else if (c == '\\') {
+                if (value == null) {
+                    value = new StringBuilder();
+                }
+                value.append(json, start, position);
+                value.append(readEscape());
+                start = position;
+            } else if (c < 0x20) {
+                throw error("Control character in string");
+            } else {
+                ++position;
+            }
+        }
+    }
+
+    private char readEscape() {
+        ++position;
+        if (position >= json.length()) {
+            throw error("Unterminated string");
+        }
+        char c = json.charAt(position++);
+        switch (c) {
+            case '"':
+            case '\\':
+            case '/':
+                return c;
+            case 'b':
+                return '\b';
+            case 'f':
+                return '\f';
+            case 'n':
+                return '\n';
+            case 'r':
+                return '\r';
+            case 't':
+                return '\t';
+            case 'u':
+                int escaped = 0;
+                for (int end = position + 4; position < end; ++position) {
+                    int digit = position < json.length() ? hexDigit(json.charAt(position)) : -1;
+                    if (digit < 0) {
+                        throw error("Invalid unicode escape");
+                    }
+                    escaped = escaped << 4 | digit;
+                }
+                return (char) escaped;
+            default:
+                --position;
+                throw error("Invalid escape");
+        }
+    }
+
+    private static int hexDigit(final char c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        } else if (c >= 'a' && c <= 'f') {
+            return c - 'a' + 10;
+        } else if (c >= 'A' && c <= 'F') {
+            return c - 'A' + 10;
+        }
+        return -1;
+    }
+
+    private void skipWhitespace() {
+        while (position < json.length()) {
+            char c = json.charAt(position);
+            if (c != ' ' && c != '\t' && c != '\r' && c != '\n') {
+                break;
+            }
+            ++position;
+        }
+    }
+
+    private char peek() {
+        if (position >= json.length()) {
+            throw error("Unexpected end");
+        }
+        return json.charAt(position);
+    }
+
+    private boolean consume(final char c) {
+        if (position < json.length() && json.charAt(position) == c) {
+            ++position;
+            return true;
+        }
+        return false;
+    }
+
+    private void expect(final char c) {
+        if (!consume(c)) {
+            throw error("Expected '" + c + "'");
+        }
+    }
+
+    private IllegalArgumentException error(final String message) {
+        return new IllegalArgumentException(message + " at column " + (position + 1));
+    }
+
+}
@@ -0,0 +1,127 @@
+package io.github.dgileadi.usaddress;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A thread-safe cache that holds at most a fixed number of entries, evicting
+ * the least recently used ones first.
+ * <p>
+ * Larger caches spread their entries over independently locked segments so
+ * that concurrent callers rarely contend. Each segment evicts on its own, so
+ * for those the eviction order is only approximately least recently used.
+ *
+ * @param <K> the key type.
+ * @param <V> the value type.
+ */
+final class LruCache<K, V> {
+    private static final int MAX_SEGMENTS = 16;
+    private static final int MIN_SEGMENT_SIZE = 64;
+
+    private final int maxSize;
+    private final Segment<K, V>[] segments;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * @param maxSize the most entries to hold, at least 1.
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    LruCache(final int maxSize) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("Cache size must be positive: " + maxSize);
+        }
+        this.maxSize = maxSize;
+        int count = Math.max(1, Math.min(MAX_SEGMENTS, Integer.highestOneBit(maxSize / MIN_SEGMENT_SIZE)));
+        segments = new Segment[count];
+        for (int i = 0; i < count; i++) {
+            segments[i] = new Segment<>(maxSize / count + (i < maxSize % count ? 1 : 0), evictions);
+        }
+    }
+
+    /**
+     * @param key the key.
+     * @return the cached value, or {@code null} if there isn't one.
+     */
+    V get(final K key) {
+        Segment<K, V> segment = segmentFor(key);
+        V value;
+        segment.lock.lock();
+        try {
+            value = segment.get(key);
+        } finally {
+            segment.lock.unlock();
+        }
+        if (value == null) {
+            misses.increment();
+        } else {
+            hits.increment();
+        }
+        return value;
+    }
+
+    /**
+     * Cache a value, possibly evicting another.
+     *
+     * @param key   the key.
+     * @param value the value, which must not be modified afterwards.
+     */
+    void put(final K key, final V value) {
+        Segment<K, V> segment = segmentFor(key);
+        segment.lock.lock();
+        try {
+            segment.put(key, value);
+        } finally {
+            segment.lock.unlock();
+        }
+    }
+
+    /**
+     * @return a snapshot of this cache's statistics.
+     */
+    CacheStats stats() {
+        long size = 0;
+        for (Segment<K, V> segment : segments) {
+            segment.lock.lock();
+            try {
+                size += segment.size();
+            } finally {
+                segment.lock.unlock();
+            }
+        }
+        return new CacheStats(hits.sum(), misses.sum(), evictions.sum(), size, maxSize);
+    }
+
+    private Segment<K, V> segmentFor(final K key) {
+        int hash = key.hashCode();
+        hash ^= hash >>> 16;
+        return segments[hash & (segments.length - 1)];
+    }
+
+    private static final class Segment<K, V> extends LinkedHashMap<K, V> {
+        private static final long serialVersionUID = 1L;
+
+        private final transient ReentrantLock lock = new ReentrantLock();
+        private final int capacity;
+        private final transient LongAdder evictions;
+
+        Segment(final int capacity, final LongAdder evictions) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+            this.evictions = evictions;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<K, V> eldest) {
+            if (size() > capacity) {
+                evictions.increment();
+                return true;
+            }
+            return false;
+        }
+    }
+
+}
@@ -0,0 +1,104 @@
+package io.github.dgileadi.usaddress;
+
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Loads model files and shares each loaded model with every parser in the JVM
+ * that loads the same file.
+ * <p>
+ * A file is decoded from a read-only mapping, which saves copying it into a
+ * byte array first, but the decoded model lives in the heap like any other,
+ * and the mapping is dropped once it's decoded. What's saved is loading a
+ * model once per parser: one decoded copy is shared within the JVM, though not
+ * with other processes. A model is only held weakly, so it's freed once no
+ * parser uses it. A file that has changed since it was loaded, judging by its
+ * size and modification time, is loaded again.
+ */
+final class ModelStore {
+    private static final ReentrantLock LOCK = new ReentrantLock();
+    private static final Map<Key, WeakReference<FeatureDictionary>> MODELS = new HashMap<>();
+
+    private ModelStore() {
+    }
+
+    /**
+     * @param path the path of a CRFsuite model file.
+     * @return the loaded model's feature dictionary, shared with other callers.
+     * @throws IOException if the file can't be read or isn't a valid model.
+     */
+    static FeatureDictionary load(final Path path) throws IOException {
+        Path realPath = path.toRealPath();
+        BasicFileAttributes attributes = Files.readAttributes(realPath, BasicFileAttributes.class);
+        Key key = new Key(realPath, attributes.size(), attributes.lastModifiedTime().toMillis());
+
+        LOCK.lock();
+        try {
+            WeakReference<FeatureDictionary> reference = MODELS.get(key);
+            FeatureDictionary dictionary = reference == null ? null : reference.get();
+            if (dictionary == null) {
+                dictionary = new FeatureDictionary(CrfModel.read(map(realPath)));
+                removeCleared();
+                MODELS.put(key, new WeakReference<>(dictionary));
+            }
+            return dictionary;
+        } finally {
+            LOCK.unlock();
+        }
+    }
+
+    /**
+     * Map a file read-only. The mapping stays valid after the channel is
+     * closed, and is released when the buffer is garbage collected.
+     */
+    static MappedByteBuffer map(final Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    private static void removeCleared() {
+        for (Iterator<WeakReference<FeatureDictionary>> i = MODELS.values().iterator(); i.hasNext();) {
+            if (i.next().get() == null) {
+                i.remove();
+            }
+        }
+    }
+
+    private static final class Key {
+        private final Path path;
+        private final long size;
+        private final long lastModified;
+
+        Key(final Path path, final long size, final long lastModified) {
+            this.path = path;
+            this.size = size;
+            this.lastModified = lastModified;
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return path.equals(other.path) && size == other.size && lastModified == other.lastModified;
+        }
+
+        @Override
+        public int hashCode() {
+            return path.hashCode() * 31 + Long.hashCode(size * 31 + lastModified);
+        }
+    }
+
+}
@@ -0,0 +1,58 @@
+package io.github.dgileadi.usaddress;
+
+/**
+ * Receives timings of each address a parser parses, for instance to find out
+ * where slow parses spend their time. Set one with
+ * {@link AddressParser.Builder#listener(ParseListener)};
+ * {@link ParseMetrics} is a ready-made one that keeps latency histograms.
+ * <p>
+ * Listeners are called on the parsing thread, from many threads at once, so
+ * they must be thread-safe and quick. Every method does nothing by default.
+ * When a parser has no listener it doesn't read the clock at all.
+ */
+public interface ParseListener {
+
+    /**
+     * The stages of parsing an address.
+     */
+    enum Stage {
+        /** Splitting the address string into tokens. */
+        TOKENIZE,
+        /** Computing the features of each token. Skipped on result cache hits. */
+        FEATURES,
+        /** Labeling the tokens. Skipped on result cache hits. */
+        TAG,
+        /**
+         * Merging and cleaning fields in
+         * {@link AddressParser#parseAndCleanAddress(String)}.
+         */
+        CLEAN
+    }
+
+    /**
+     * Called when a stage of parsing an address finishes.
+     *
+     * @param stage the stage.
+     * @param nanos how long it took, in nanoseconds.
+     */
+    default void stageCompleted(final Stage stage, final long nanos) {
+    }
+
+    /**
+     * Called when an address has been parsed.
+     *
+     * @param tokens the number of tokens in the address.
+     * @param nanos  how long parsing took in all, in nanoseconds.
+     */
+    default void parseCompleted(final int tokens, final long nanos) {
+    }
+
+    /**
+     * Called when parsing an address fails, just before the error is thrown.
+     *
+     * @param error the error.
+     */
+    default void parseFailed(final RuntimeException error) {
+    }
+
+}
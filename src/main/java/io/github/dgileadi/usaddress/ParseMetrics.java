@@ -0,0 +1,260 @@
+package io.github.dgileadi.usaddress;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A {@link ParseListener} that counts parses, tokens and errors, and keeps a
+ * latency histogram of each stage and of whole parses. Recording is lock-free,
+ * so one instance can be shared by every parsing thread.
+ *
+ * <pre>{@code
+ * ParseMetrics metrics = new ParseMetrics();
+ * AddressParser parser = AddressParser.builder().listener(metrics).build();
+ * ...
+ * System.out.println(metrics.snapshot());
+ * }</pre>
+ */
+public final class ParseMetrics implements ParseListener {
+    private final LongAdder parses = new LongAdder();
+    private final LongAdder tokens = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final EnumMap<Stage, LatencyHistogram> stages = new EnumMap<>(Stage.class);
+
+    public ParseMetrics() {
+        for (Stage stage : Stage.values()) {
+            stages.put(stage, new LatencyHistogram());
+        }
+    }
+
+    @Override
+    public void stageCompleted(final Stage stage, final long nanos) {
+        stages.get(stage).record(nanos);
+    }
+
+    @Override
+    public void parseCompleted(final int tokenCount, final long nanos) {
+        parses.increment();
+        tokens.add(tokenCount);
+        latency.record(nanos);
+    }
+
+    @Override
+    public void parseFailed(final RuntimeException error) {
+        errors.increment();
+    }
+
+    /**
+     * @return the metrics recorded so far.
+     */
+    public Snapshot snapshot() {
+        EnumMap<Stage, Latency> stageLatencies = new EnumMap<>(Stage.class);
+        for (Map.Entry<Stage, LatencyHistogram> entry : stages.entrySet()) {
+            stageLatencies.put(entry.getKey(), entry.getValue().snapshot());
+        }
+        return new Snapshot(parses.sum(), tokens.sum(), errors.sum(), latency.snapshot(), stageLatencies);
+    }
+
+    /**
+     * A point-in-time copy of a parser's metrics.
+     */
+    public static final class Snapshot {
+        private final long parseCount;
+        private final long tokenCount;
+        private final long errorCount;
+        private final Latency latency;
+        private final EnumMap<Stage, Latency> stages;
+
+        Snapshot(final long parseCount, final long tokenCount, final long errorCount, final Latency latency,
+                final EnumMap<Stage, Latency> stages) {
+            this.parseCount = parseCount;
+            this.tokenCount = tokenCount;
+            this.errorCount = errorCount;
+            this.latency = latency;
+            this.stages = stages;
+        }
+
+        /**
+         * @return the number of addresses parsed.
+         */
+        public long getParseCount() {
+            return parseCount;
+        }
+
+        /**
+         * @return the number of tokens in all parsed addresses.
+         */
+        public long getTokenCount() {
+            return tokenCount;
+        }
+
+        /**
+         * @return the number of parses that failed.
+         */
+        public long getErrorCount() {
+            return errorCount;
+        }
+
+        /**
+         * @return the latency of whole parses.
+         */
+        public Latency getLatency() {
+            return latency;
+        }
+
+        /**
+         * @param stage a stage of parsing.
+         * @return the latency of the stage.
+         */
+        public Latency getLatency(final Stage stage) {
+            return stages.get(stage);
+        }
+
+        /**
+         * Flatten the metrics into names and values, for exporting to a
+         * monitoring system. Names look like {@code parses},
+         * {@code latency.p99} and {@code tag.p50}, and latencies are in
+         * nanoseconds.
+         *
+         * @return the metrics, in a stable order.
+         */
+        public Map<String, Long> toMap() {
+            Map<String, Long> map = new LinkedHashMap<>();
+            map.put("parses", parseCount);
+            map.put("tokens", tokenCount);
+            map.put("errors", errorCount);
+            latency.addTo(map, "latency");
+            for (Map.Entry<Stage, Latency> entry : stages.entrySet()) {
+                entry.getValue().addTo(map, entry.getKey().name().toLowerCase(Locale.ROOT));
+            }
+            return map;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder out = new StringBuilder();
+            out.append(String.format(Locale.ROOT, "%,d parses, %,d tokens, %,d errors%n", parseCount, tokenCount,
+                    errorCount));
+            out.append(String.format(Locale.ROOT, "%-9s %s%n", "parse", latency));
+            for (Map.Entry<Stage, Latency> entry : stages.entrySet()) {
+                out.append(String.format(Locale.ROOT, "%-9s %s%n",
+                        entry.getKey().name().toLowerCase(Locale.ROOT), entry.getValue()));
+            }
+            return out.toString();
+        }
+    }
+
+    /**
+     * A latency distribution. Percentiles are accurate to about 3%.
+     */
+    public static final class Latency {
+        private final long[] buckets;
+        private final long count;
+        private final long totalNanos;
+
+        Latency(final long[] buckets, final long count, final long totalNanos) {
+            this.buckets = buckets;
+            this.count = count;
+            this.totalNanos = totalNanos;
+        }
+
+        /**
+         * @return the number of latencies recorded.
+         */
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * @return the mean latency in nanoseconds, or {@code 0} if none were
+         *         recorded.
+         */
+        public double getMeanNanos() {
+            return count == 0 ? 0 : (double) totalNanos / count;
+        }
+
+        /**
+         * @param percentile a percentile from 0 to 100, such as {@code 99.9}.
+         * @return the latency in nanoseconds that the given percentage of
+         *         recorded latencies are at or below, or {@code 0} if none were
+         *         recorded.
+         */
+        public long getPercentileNanos(final double percentile) {
+            if (percentile < 0 || percentile > 100) {
+                throw new IllegalArgumentException("Percentiles are from 0 to 100: " + percentile);
+            }
+            if (count == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+            long seen = 0;
+            for (int i = 0; i < buckets.length; i++) {
+                seen += buckets[i];
+                if (seen >= rank) {
+                    return LatencyHistogram.highestValue(i);
+                }
+            }
+            return getMaxNanos();
+        }
+
+        /**
+         * @return the median latency in nanoseconds.
+         */
+        public long getP50Nanos() {
+            return getPercentileNanos(50);
+        }
+
+        /**
+         * @return the 99th percentile latency in nanoseconds.
+         */
+        public long getP99Nanos() {
+            return getPercentileNanos(99);
+        }
+
+        /**
+         * @return the 99.9th percentile latency in nanoseconds.
+         */
+        public long getP999Nanos() {
+            return getPercentileNanos(99.9);
+        }
+
+        /**
+         * @return about the highest latency in nanoseconds, or {@code 0} if none
+         *         were recorded.
+         */
+        public long getMaxNanos() {
+            for (int i = buckets.length - 1; i >= 0; i--) {
+                if (buckets[i] > 0) {
+                    return LatencyHistogram.highestValue(i);
+                }
+            }
+            return 0;
+        }
+
+        void addTo(final Map<String, Long> map, final String prefix) {
+            map.put(prefix + ".count", count);
+            map.put(prefix + ".mean", Math.round(getMeanNanos()));
+            map.put(prefix + ".p50", getP50Nanos());
+            map.put(prefix + ".p99", getP99Nanos());
+            map.put(prefix + ".p999", getP999Nanos());
+            map.put(prefix + ".max", getMaxNanos());
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "count=%,d mean=%s p50=%s p99=%s p999=%s max=%s", count,
+                    micros(Math.round(getMeanNanos())), micros(getP50Nanos()), micros(getP99Nanos()),
+                    micros(getP999Nanos()), micros(getMaxNanos()));
+        }
+
+        private static String micros(final long nanos) {
+            return String.format(Locale.ROOT, "%.1fus", nanos / (double) TimeUnit.MICROSECONDS.toNanos(1));
+        }
+    }
+
+}
@@ -0,0 +1,139 @@
+package io.github.dgileadi.usaddress;
+
+import java.util.Arrays;
+
+/**
+ * Parses an address as it's typed, redoing only the work that each change
+ * affects. Create one with {@link AddressParser#newSession()} for each input
+ * field, and pass it the whole text after every keystroke.
+ * <p>
+ * A session keeps the tokens of the last text it parsed, along with their
+ * features, state scores and the tagger's forward scores. Tokens up to the
+ * first one that changed keep all of those, apart from the token just before
+ * it, whose {@code next} features changed, and the last two, whose
+ * {@code address.end} features may have. So typing at the end of an address
+ * only featurizes and scores the last token or two, and only runs the tagger
+ * over them. Editing earlier in the address redoes everything from the edit
+ * on.
+ * <p>
+ * The results are identical to {@link AddressParser#parseAddress(String)} and
+ * {@link AddressParser#parseAndCleanAddress(String)}. The parser's result cache
+ * isn't consulted, but its token cache is. Each parse is reported to the parser's
+ * {@link ParseListener} as a whole, without stage timings.
+ * <p>
+ * A session is not thread-safe.
+ */
+public final class ParseSession {
+    private static final Tokens NO_TOKENS = Tokens.of("");
+
+    private final ParserModel model;
+    private final CrfModel crf;
+    private final ParseListener listener;
+    private final int numLabels;
+
+    // the last address parsed, and its features, scores and labels
+    private Tokens tokens = NO_TOKENS;
+    private int[][] features = new int[0][];
+    private double[] state = new double[0];
+    private double[] forward = new double[0];
+    private int[] back = new int[0];
+    private int[] path = new int[0];
+
+    ParseSession(final ParserModel model, final ParseListener listener) {
+        this.model = model;
+        this.crf = model.getDictionary().getModel();
+        this.listener = listener;
+        this.numLabels = crf.getLabelCount();
+    }
+
+    /**
+     * Split an address string into fields, and assign a type to each field,
+     * reusing what's unchanged since the last parse.
+     *
+     * @param address the address string to parse.
+     * @return the parsed address.
+     * @see AddressParser#parseAddress(String)
+     */
+    public Address parse(final String address) {
+        return parse(address, false);
+    }
+
+    /**
+     * Split an address string into fields, assign a type to each field and
+     * merge consecutive fields, reusing what's unchanged since the last parse.
+     *
+     * @param address the address string to parse.
+     * @return the parsed address.
+     * @see AddressParser#parseAndCleanAddress(String)
+     */
+    public Address parseAndClean(final String address) {
+        return parse(address, true);
+    }
+
+    /**
+     * Forget the last address, for instance when the input it was typed into
+     * is cleared, so that its buffers can be freed.
+     */
+    public void reset() {
+        tokens = NO_TOKENS;
+        features = new int[0][];
+        state = new double[0];
+        forward = new double[0];
+        back = new int[0];
+        path = new int[0];
+    }
+
+    private Address parse(final String address, final boolean clean) {
+        long start = listener == null ? 0 : System.nanoTime();
+        try {
+            Tokens next = Tokens.of(address);
+            int[] tags = tag(next);
+            Address parsed = clean ? AddressParser.clean(model, next, tags) : AddressParser.fields(model, next, tags);
+            if (listener != null) {
+                listener.parseCompleted(next.size(), System.nanoTime() - start);
+            }
+            return parsed;
+        } catch (RuntimeException e) {
+            if (listener != null) {
+                listener.parseFailed(e);
+            }
+            throw e;
+        }
+    }
+
+    private int[] tag(final Tokens next) {
+        int length = next.size();
+        int previousLength = tokens.size();
+        int unchanged = 0;
+        int shorter = Math.min(length, previousLength);
+        while (unchanged < shorter && next.get(unchanged).equals(tokens.get(unchanged))) {
+            ++unchanged;
+        }
+
+        // if this fails partway through, start over next time
+        tokens = NO_TOKENS;
+        ensureCapacity(length);
+        for (int t = unchanged; t < length; t++) {
+            features[t] = AddressParser.tokenFeatures(model, next.get(t));
+        }
+        // the scores of a position depend on its neighbors' features and whether it's among the last two
+        int from = Math.max(0, Math.min(unchanged - 1, shorter - 2));
+        model.getDictionary().stateScores(features, length, from, state);
+        crf.tag(state, length, from, forward, back, path);
+
+        tokens = next;
+        return Arrays.copyOf(path, length);
+    }
+
+    private void ensureCapacity(final int length) {
+        if (features.length < length) {
+            int capacity = Math.max(length, features.length * 2);
+            features = Arrays.copyOf(features, capacity);
+            state = Arrays.copyOf(state, capacity * numLabels);
+            forward = Arrays.copyOf(forward, capacity * numLabels);
+            back = Arrays.copyOf(back, capacity * numLabels);
+            path = Arrays.copyOf(path, capacity);
+        }
+    }
+
+}
@@ -0,0 +1,122 @@
+package io.github.dgileadi.usaddress;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * A loaded model together with everything derived from it that parsing needs.
+ */
+final class ParserModel {
+    private final String version;
+    private final CrfModel model;
+    private final FeatureDictionary dictionary;
+    private final TaggerPool taggers;
+    private final LruCache<String, int[]> results;
+    private final LruCache<String, int[]> tokens;
+    // the Address.FieldType ordinal of each label, or -1 if it has none
+    private final byte[] fieldTypes;
+
+    /**
+     * @param version         the name of the model's version, which each
+     *                        address parsed with it reports.
+     * @param contents        the contents of a CRFsuite model file.
+     * @param taggerPoolSize  the most taggers to keep for reuse.
+     * @param resultCacheSize the most label sequences to cache, or {@code 0} to
+     *                        not cache them.
+     * @param tokenCacheSize  the most token features to cache, or {@code 0} to
+     *                        not cache them.
+     * @throws IOException if the contents aren't a valid model.
+     */
+    ParserModel(final String version, final ByteBuffer contents, final int taggerPoolSize,
+            final int resultCacheSize, final int tokenCacheSize) throws IOException {
+        this(version, new FeatureDictionary(CrfModel.read(contents)), taggerPoolSize, resultCacheSize, tokenCacheSize);
+    }
+
+    /**
+     * @param version         the name of the model's version, which each
+     *                        address parsed with it reports.
+     * @param dictionary      the feature dictionary of a loaded model, which
+     *                        may be shared with other parsers.
+     * @param taggerPoolSize  the most taggers to keep for reuse.
+     * @param resultCacheSize the most label sequences to cache, or {@code 0} to
+     *                        not cache them.
+     * @param tokenCacheSize  the most token features to cache, or {@code 0} to
+     *                        not cache them.
+     */
+    ParserModel(final String version, final FeatureDictionary dictionary, final int taggerPoolSize,
+            final int resultCacheSize, final int tokenCacheSize) {
+        this.version = version;
+        this.model = dictionary.getModel();
+        this.dictionary = dictionary;
+        this.taggers = new TaggerPool(model, dictionary, taggerPoolSize);
+        this.results = resultCacheSize > 0 ? new LruCache<>(resultCacheSize) : null;
+        this.tokens = tokenCacheSize > 0 ? new LruCache<>(tokenCacheSize) : null;
+        this.fieldTypes = new byte[model.getLabelCount()];
+        for (int label = 0; label < fieldTypes.length; label++) {
+            try {
+                fieldTypes[label] = (byte) Address.FieldType.forLabel(model.getLabel(label)).ordinal();
+            } catch (IllegalArgumentException e) {
+                fieldTypes[label] = -1;
+            }
+        }
+    }
+
+    String getVersion() {
+        return version;
+    }
+
+    FeatureDictionary getDictionary() {
+        return dictionary;
+    }
+
+    /**
+     * @return the cache of label ids by normalized address, or {@code null} if
+     *         results aren't cached.
+     */
+    LruCache<String, int[]> getResultCache() {
+        return results;
+    }
+
+    /**
+     * @return the cache of base feature ids by token, or {@code null} if token
+     *         features aren't cached.
+     */
+    LruCache<String, int[]> getTokenCache() {
+        return tokens;
+    }
+
+    /**
+     * @param id a label id.
+     * @return the name of the label, such as {@code AddressNumber}.
+     */
+    String getLabel(final int id) {
+        return model.getLabel(id);
+    }
+
+    /**
+     * @param id a label id.
+     * @return the ordinal of the label's {@link Address.FieldType}.
+     * @throws IllegalArgumentException if the label isn't a known field type.
+     */
+    byte getFieldType(final int id) {
+        byte fieldType = fieldTypes[id];
+        if (fieldType < 0) {
+            throw new IllegalArgumentException(model.getLabel(id));
+        }
+        return fieldType;
+    }
+
+    /**
+     * @param features the base ids of each token's features.
+     * @return the label id of each token.
+     */
+    int[] tag(final int[][] features) {
+        Tagger tagger = taggers.acquire();
+        try {
+            return tagger.tag(features);
+        } finally {
+            taggers.release(tagger);
+        }
+    }
+
+}
@@ -0,0 +1,49 @@
+package io.github.dgileadi.usaddress;
+
+import java.util.Arrays;
+
+/**
+ * Labels featurized addresses, reusing its scratch space between calls.
+ * <p>
+ * A tagger is not thread-safe. Borrow one from a {@link TaggerPool} for each
+ * parse rather than sharing it.
+ */
+final class Tagger {
+    // buffers for addresses longer than this many tokens aren't kept
+    static final int MAX_RETAINED_LENGTH = 256;
+
+    private final CrfModel model;
+    private final FeatureDictionary dictionary;
+    private final int numLabels;
+    private final double[] scores;
+    private double[] state = new double[0];
+    private int[] back = new int[0];
+    private int[] path = new int[0];
+
+    Tagger(final CrfModel model, final FeatureDictionary dictionary) {
+        this.model = model;
+        this.dictionary = dictionary;
+        this.numLabels = model.getLabelCount();
+        this.scores = new double[2 * numLabels];
+    }
+
+    /**
+     * @param features the base ids of each token's features.
+     * @return the label id of each token.
+     */
+    int[] tag(final int[][] features) {
+        int length = features.length;
+        if (length > MAX_RETAINED_LENGTH) {
+            return model.tag(dictionary.stateScores(features), length);
+        }
+        if (path.length < length) {
+            state = new double[length * numLabels];
+            back = new int[length * numLabels];
+            path = new int[length];
+        }
+        dictionary.stateScores(features, state);
+        model.tag(state, length, scores, back, path);
+        return Arrays.copyOf(path, length);
+    }
+
+}
@@ -0,0 +1,80 @@
+package io.github.dgileadi.usaddress;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A bounded, lock-free pool of {@link Tagger}s.
+ * <p>
+ * Each thread starts looking for a free tagger at a slot derived from its id,
+ * so under steady load threads tend to keep reusing "their" tagger without
+ * contending with each other. When every pooled tagger is in use a temporary
+ * one is created instead of waiting, so parsing never blocks.
+ */
+final class TaggerPool {
+    private final CrfModel model;
+    private final FeatureDictionary dictionary;
+    private final AtomicReferenceArray<Tagger> slots;
+
+    /**
+     * @param model      the model to tag with.
+     * @param dictionary the model's feature dictionary.
+     * @param size       the most taggers to keep for reuse. Usually the number of
+     *                   threads expected to parse at once.
+     */
+    TaggerPool(final CrfModel model, final FeatureDictionary dictionary, final int size) {
+        if (size < 1) {
+            throw new IllegalArgumentException("Pool size must be positive: " + size);
+        }
+        this.model = model;
+        this.dictionary = dictionary;
+        this.slots = new AtomicReferenceArray<>(size);
+    }
+
+    /**
+     * @return the most taggers this pool keeps for reuse.
+     */
+    int size() {
+        return slots.length();
+    }
+
+    /**
+     * Take a tagger for the current thread's exclusive use. Give it back with
+     * {@link #release(Tagger)} when done.
+     *
+     * @return a tagger.
+     */
+    Tagger acquire() {
+        int start = homeSlot();
+        for (int i = 0; i < slots.length(); i++) {
+            int slot = (start + i) % slots.length();
+            if (slots.get(slot) != null) {
+                Tagger tagger = slots.getAndSet(slot, null);
+                if (tagger != null) {
+                    return tagger;
+                }
+            }
+        }
+        return new Tagger(model, dictionary);
+    }
+
+    /**
+     * Return a tagger taken with {@link #acquire()}. If the pool is already full
+     * the tagger is dropped.
+     *
+     * @param tagger the tagger.
+     */
+    void release(final Tagger tagger) {
+        int start = homeSlot();
+        for (int i = 0; i < slots.length(); i++) {
+            int slot = (start + i) % slots.length();
+            if (slots.get(slot) == null && slots.compareAndSet(slot, null, tagger)) {
+                return;
+            }
+        }
+    }
+
+    private int homeSlot() {
+        return (int) (Thread.currentThread().getId() % slots.length());
+    }
+
+}
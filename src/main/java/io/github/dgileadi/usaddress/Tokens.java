@@ -0,0 +1,231 @@
+package io.github.dgileadi.usaddress;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+
+/**
+ * The tokens of an address, kept as start and end offsets into the original
+ * string and only turned into strings when they're read.
+ * <p>
+ * The tokens are exactly the ones the pattern
+ * {@code \(*\b[^\s,;#&()]+[.,;)\n]*|[#&]} finds, with Unicode character classes,
+ * after replacing the HTML entities {@code &amp;} and {@code &#38;} with
+ * {@code &}. Rather than copying the string and running the pattern, a single
+ * scan treats each entity as an {@code &} that happens to be five characters
+ * wide. Such a token's text is {@code &}, while its offsets cover the entity.
+ */
+final class Tokens extends AbstractList<String> {
+    private static final String AMPERSAND = "&";
+    private static final String[] AMPERSAND_ENTITIES = { "&amp;", "&#38;" };
+
+    private final String address;
+    // the start and end of each token, in pairs
+    private int[] offsets;
+    private int size;
+    private String[] values;
+
+    private Tokens(final String address) {
+        this.address = address;
+        this.offsets = new int[16];
+    }
+
+    /**
+     * @param address the address string.
+     * @return the tokens of the address.
+     */
+    static Tokens of(final String address) {
+        Tokens tokens = new Tokens(address);
+        tokens.scan();
+        return tokens;
+    }
+
+    /**
+     * @return the address string that was tokenized.
+     */
+    String getAddress() {
+        return address;
+    }
+
+    /**
+     * @param index the index of a token.
+     * @return the offset of the token's first character in the address.
+     */
+    int start(final int index) {
+        checkIndex(index);
+        return offsets[index * 2];
+    }
+
+    /**
+     * @param index the index of a token.
+     * @return the offset just past the token's last character in the address.
+     */
+    int end(final int index) {
+        checkIndex(index);
+        return offsets[index * 2 + 1];
+    }
+
+    /**
+     * @return the start and end of each token, in pairs.
+     */
+    int[] offsets() {
+        return Arrays.copyOf(offsets, size * 2);
+    }
+
+    /**
+     * @param address an address string.
+     * @param start   the start of one of its tokens.
+     * @param end     the end of the token.
+     * @return the text of the token.
+     */
+    static String text(final String address, final int start, final int end) {
+        // a token that starts with an ampersand is just the ampersand, or an entity for it
+        return address.charAt(start) == '&' ? AMPERSAND : address.substring(start, end);
+    }
+
+    @Override
+    public String get(final int index) {
+        checkIndex(index);
+        if (values == null) {
+            values = new String[size];
+        }
+        String value = values[index];
+        if (value == null) {
+            value = text(address, offsets[index * 2], offsets[index * 2 + 1]);
+            values[index] = value;
+        }
+        return value;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    private void scan() {
+        int length = address.length();
+        int i = 0;
+        while (i < length) {
+            // \(*\b[^\s,;#&()]+[.,;)\n]*
+            int start = i;
+            while (i < length && address.charAt(i) == '(') {
+                ++i;
+            }
+            if (i < length) {
+                int c = address.codePointAt(i);
+                if (isTokenChar(c) && isWord(c) != (i > 0 && isWord(address.codePointBefore(i)))) {
+                    do {
+                        i += Character.charCount(c);
+                    } while (i < length && isTokenChar(c = address.codePointAt(i)));
+                    while (i < length && isTrailingChar(address.charAt(i))) {
+                        ++i;
+                    }
+                    add(start, i);
+                    continue;
+                }
+            } else {
+                break;
+            }
+
+            // [#&], or skip a character that doesn't start a token
+            char c = address.charAt(i);
+            if (c == '#') {
+                add(i, ++i);
+            } else if (c == '&') {
+                int end = i + ampersandLength(i);
+                add(i, end);
+                i = end;
+            } else {
+                i += Character.charCount(address.codePointAt(i));
+            }
+        }
+    }
+
+    private int ampersandLength(final int offset) {
+        for (String entity : AMPERSAND_ENTITIES) {
+            if (address.startsWith(entity, offset)) {
+                return entity.length();
+            }
+        }
+        return 1;
+    }
+
+    private void add(final int start, final int end) {
+        if (size * 2 == offsets.length) {
+            offsets = Arrays.copyOf(offsets, offsets.length * 2);
+        }
+        offsets[size * 2] = start;
+        offsets[size * 2 + 1] = end;
+        ++size;
+    }
+
+    private void checkIndex(final int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + size);
+        }
+    }
+
+    /**
+     * {@code [^\s,;#&()]} with Unicode character classes.
+     */
+    private static boolean isTokenChar(final int c) {
+        switch (c) {
+            case ',':
+            case ';':
+            case '#':
+            case '&':
+            case '(':
+            case ')':
+                return false;
+            default:
+                return !isWhitespace(c);
+        }
+    }
+
+    /**
+     * {@code [.,;)\n]}.
+     */
+    private static boolean isTrailingChar(final char c) {
+        return c == '.' || c == ',' || c == ';' || c == ')' || c == '\n';
+    }
+
+    /**
+     * {@code \s} with Unicode character classes.
+     */
+    private static boolean isWhitespace(final int c) {
+        if (c < 0x80) {
+            return c == ' ' || (c >= 0x9 && c <= 0xd);
+        }
+        switch (Character.getType(c)) {
+            case Character.SPACE_SEPARATOR:
+            case Character.LINE_SEPARATOR:
+            case Character.PARAGRAPH_SEPARATOR:
+                return true;
+            default:
+                return c == 0x85;
+        }
+    }
+
+    /**
+     * {@code \w} with Unicode character classes, which is what {@code \b}
+     * tests.
+     */
+    static boolean isWord(final int c) {
+        if (c < 0x80) {
+            return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_';
+        }
+        if (Character.isAlphabetic(c)) {
+            return true;
+        }
+        switch (Character.getType(c)) {
+            case Character.NON_SPACING_MARK:
+            case Character.ENCLOSING_MARK:
+            case Character.COMBINING_SPACING_MARK:
+            case Character.DECIMAL_DIGIT_NUMBER:
+            case Character.CONNECTOR_PUNCTUATION:
+                return true;
+            default:
+                return c == 0x200c || c == 0x200d;
+        }
+    }
+
+}
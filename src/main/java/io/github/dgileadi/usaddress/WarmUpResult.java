@@ -0,0 +1,91 @@
+package io.github.dgileadi.usaddress;
+
+import java.time.Duration;
+import java.util.Locale;
+
+/**
+ * How a parser's warm-up went: how fast the first addresses were parsed, how
+ * fast the last ones were, and whether that had settled down.
+ *
+ * @see AddressParser#warmUp()
+ */
+public final class WarmUpResult {
+    private final int rounds;
+    private final long addresses;
+    private final long coldNanos;
+    private final long warmNanos;
+    private final long elapsedNanos;
+    private final boolean stable;
+
+    WarmUpResult(final int rounds, final long addresses, final long coldNanos, final long warmNanos,
+            final long elapsedNanos, final boolean stable) {
+        this.rounds = rounds;
+        this.addresses = addresses;
+        this.coldNanos = coldNanos;
+        this.warmNanos = warmNanos;
+        this.elapsedNanos = elapsedNanos;
+        this.stable = stable;
+    }
+
+    /**
+     * @return the number of timed rounds run.
+     */
+    public int getRounds() {
+        return rounds;
+    }
+
+    /**
+     * @return the number of addresses parsed in all.
+     */
+    public long getAddresses() {
+        return addresses;
+    }
+
+    /**
+     * @return the mean time to parse each address the first time through the
+     *         warm-up set, in nanoseconds.
+     */
+    public long getColdNanos() {
+        return coldNanos;
+    }
+
+    /**
+     * @return the mean time to parse each address in the last round, in
+     *         nanoseconds.
+     */
+    public long getWarmNanos() {
+        return warmNanos;
+    }
+
+    /**
+     * @return how many times faster the last round was than the first time
+     *         through the warm-up set.
+     */
+    public double getSpeedUp() {
+        return warmNanos == 0 ? 0 : (double) coldNanos / warmNanos;
+    }
+
+    /**
+     * @return how long the warm-up took.
+     */
+    public Duration getElapsed() {
+        return Duration.ofNanos(elapsedNanos);
+    }
+
+    /**
+     * @return whether the time per address stopped changing, rather than the
+     *         warm-up running out of time first.
+     */
+    public boolean isStable() {
+        return stable;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT,
+                "WarmUpResult[rounds=%d, addresses=%,d, cold=%.1fus, warm=%.1fus, speedUp=%.1fx, elapsed=%.2fs, "
+                        + "stable=%s]",
+                rounds, addresses, coldNanos / 1e3, warmNanos / 1e3, getSpeedUp(), elapsedNanos / 1e9, stable);
+    }
+
+}
@@ -0,0 +1,117 @@
+package io.github.dgileadi.usaddress;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * A fixed set of lowercase words, packed into a trie that tests text directly
+ * for membership without copying it.
+ * <p>
+ * Text matches a word if it equals the word once it's lowercased with
+ * {@code toLowerCase(Locale.US)} and its periods are removed, so {@code St.}
+ * and {@code S.T} both match {@code st}.
+ * <p>
+ * The nodes are numbered breadth first, so each node's children are
+ * consecutive and the children of node {@code n} are
+ * {@code childStart[n]} to {@code childStart[n + 1]}.
+ */
+final class WordTrie {
+    // the character leading to each node
+    private final char[] labels;
+    private final int[] childStart;
+    private final boolean[] terminal;
+
+    /**
+     * @param words the words to match.
+     */
+    WordTrie(final Collection<String> words) {
+        Node root = new Node();
+        for (String word : words) {
+            Node node = root;
+            for (int i = 0; i < word.length(); i++) {
+                node = node.children.computeIfAbsent(word.charAt(i), c -> new Node());
+            }
+            node.terminal = true;
+        }
+
+        List<Node> nodes = new ArrayList<>();
+        List<Character> nodeLabels = new ArrayList<>();
+        ArrayDeque<Node> queue = new ArrayDeque<>();
+        queue.add(root);
+        nodeLabels.add('\0');
+        while (!queue.isEmpty()) {
+            Node node = queue.poll();
+            nodes.add(node);
+            for (Map.Entry<Character, Node> child : node.children.entrySet()) {
+                queue.add(child.getValue());
+                nodeLabels.add(child.getKey());
+            }
+        }
+
+        labels = new char[nodes.size()];
+        childStart = new int[nodes.size() + 1];
+        terminal = new boolean[nodes.size()];
+        int next = 1;
+        for (int i = 0; i < nodes.size(); i++) {
+            labels[i] = nodeLabels.get(i);
+            childStart[i] = next;
+            next += nodes.get(i).children.size();
+            terminal[i] = nodes.get(i).terminal;
+        }
+        childStart[nodes.size()] = next;
+    }
+
+    /**
+     * @param text the text to test.
+     * @return whether the text matches one of the words.
+     */
+    boolean matches(final CharSequence text) {
+        return matches(text, 0, text.length());
+    }
+
+    /**
+     * @param text  the text to test.
+     * @param start the start of the span to test.
+     * @param end   the end of the span to test.
+     * @return whether the span matches one of the words.
+     */
+    boolean matches(final CharSequence text, final int start, final int end) {
+        int node = 0;
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (c == '.') {
+                continue;
+            }
+            char lower = toLowerCase(c);
+            int child = childStart[node];
+            int last = childStart[node + 1];
+            while (child < last && labels[child] != lower) {
+                ++child;
+            }
+            if (child == last) {
+                return false;
+            }
+            node = child;
+        }
+        return terminal[node];
+    }
+
+    private static char toLowerCase(final char c) {
+        if (c < 0x80) {
+            return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+        }
+        // String.toLowerCase turns a dotted capital I into two characters, so it
+        // can't match; anything else lowercases like Character.toLowerCase
+        return c == '\u0130' ? c : Character.toLowerCase(c);
+    }
+
+    private static final class Node {
+        final Map<Character, Node> children = new TreeMap<>();
+        boolean terminal;
+    }
+
+}
@@ -0,0 +1,98 @@
+package io.github.dgileadi.usaddress;
+
+import static io.github.dgileadi.usaddress.TestCrfModel.describe;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.Test;
+
+class TestAddress {
+    private static final Pattern CLEAN_VALUE_PATTERN = Pattern.compile("[\\s,;]+$|^[\\s,;]+");
+
+    @Test
+    void testCleanMatchesMergingFields() throws Exception {
+        for (String corpus : new String[] { "labeled.xml", "us50_test_tagged.xml", "simple_address_patterns.xml",
+                "synthetic_osm_data.xml", "synthetic_clean_osm_data.xml" }) {
+            for (String address : TestCrfModel.addressStrings(corpus)) {
+                assertEquals(describe(mergeFields(AddressParser.parse(address).getFields())),
+                        describe(AddressParser.parseAndClean(address).getFields()), address);
+            }
+        }
+    }
+
+    @Test
+    void testFieldLookup() {
+        Address address = AddressParser.parseAndClean("123 N Main St, Chicago, IL 60601");
+
+        assertTrue(address.has(Address.FieldType.PLACE_NAME));
+        assertEquals("Chicago", address.getField(Address.FieldType.PLACE_NAME).getValue());
+        assertEquals("60601", address.getField(Address.FieldType.ZIP_CODE).getValue());
+        assertFalse(address.has(Address.FieldType.USPS_BOX_ID));
+        assertNull(address.getField(Address.FieldType.USPS_BOX_ID));
+        assertSame(address.getFields().get(0), address.getField(Address.FieldType.ADDRESS_NUMBER));
+    }
+
+    @Test
+    void testMergedValues() {
+        Address address = AddressParser.parseAndClean("Main St &amp; Elm Ave, Chicago IL");
+
+        assertEquals(Address.Type.INTERSECTION, address.getType());
+        assertEquals("&", address.getField(Address.FieldType.INTERSECTION_SEPARATOR).getValue());
+        assertEquals("Elm", address.getField(Address.FieldType.SECOND_STREET_NAME).getValue());
+        assertEquals("&", AddressParser.parse("Main St &amp; Elm Ave").getFields().get(2).getValue());
+    }
+
+    @Test
+    void testFromFields() {
+        Address address = new Address(Address.Type.PO_BOX, List.of(
+                new Address.Field("PO Box", Address.FieldType.USPS_BOX_TYPE),
+                new Address.Field("5", "USPSBoxID"))) {
+        };
+
+        assertTrue(address.has(Address.FieldType.USPS_BOX_ID));
+        assertEquals("5", address.getField(Address.FieldType.USPS_BOX_ID).getValue());
+        assertEquals(2, address.getFields().size());
+    }
+
+    /**
+     * The original parseAndClean merging, applied to the fields of a plain parse.
+     */
+    private static List<Address.Field> mergeFields(final List<Address.Field> parsed) {
+        List<Address.Field> fields = new ArrayList<>();
+        Address.FieldType lastType = null;
+        Address.FieldType fieldType = null;
+        StringBuilder value = new StringBuilder();
+        boolean isIntersection = false;
+        for (Address.Field field : parsed) {
+            Address.FieldType type = field.getType();
+            if (type == Address.FieldType.INTERSECTION_SEPARATOR) {
+                isIntersection = true;
+            }
+            if (type == lastType) {
+                value.append(' ').append(field.getValue());
+            } else {
+                if (fieldType != null) {
+                    fields.add(new Address.Field(CLEAN_VALUE_PATTERN.matcher(value).replaceAll(""), fieldType));
+                }
+                value.setLength(0);
+                value.append(field.getValue());
+                fieldType = type == Address.FieldType.STREET_NAME && isIntersection
+                        ? Address.FieldType.SECOND_STREET_NAME
+                        : type;
+            }
+            lastType = type;
+        }
+        if (fieldType != null) {
+            fields.add(new Address.Field(CLEAN_VALUE_PATTERN.matcher(value).replaceAll(""), fieldType));
+        }
+        return fields;
+    }
+
+}
@@ -0,0 +1,145 @@
+package io.github.dgileadi.usaddress;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import io.github.dgileadi.usaddress.Address.FieldType;
+
+class TestAddressExtractor {
+    private static final String DOCUMENT = "Hi Sam,\n\nShip it to 123 Main St, Springfield, IL 62701 by Friday. "
+            + "We ordered 3 boxes last week and paid $45.\n\n"
+            + "The warehouse moved to 4500 N Sheridan Rd Chicago IL 60640. "
+            + "Returns go to PO Box 42, Evanston, IL 60201 instead.\n"
+            + "Our DC office (1600 Pennsylvania Ave. NW) is closed.\n\nThanks!";
+
+    private final AddressExtractor extractor = AddressExtractor.builder().build();
+
+    @Test
+    void testDocument() {
+        List<AddressExtractor.Match> matches = extractor.extract(DOCUMENT);
+
+        assertEquals(4, matches.size(), matches.toString());
+        assertMatch(matches.get(0), "123 Main St, Springfield, IL 62701", Address.Type.STREET_ADDRESS);
+        assertMatch(matches.get(1), "4500 N Sheridan Rd Chicago IL 60640", Address.Type.STREET_ADDRESS);
+        assertMatch(matches.get(2), "PO Box 42, Evanston, IL 60201", Address.Type.PO_BOX);
+        assertMatch(matches.get(3), "1600 Pennsylvania Ave. NW", Address.Type.STREET_ADDRESS);
+
+        Address address = matches.get(0).getAddress();
+        assertEquals("Springfield", address.getField(FieldType.PLACE_NAME).getValue());
+        assertEquals("62701", address.getField(FieldType.ZIP_CODE).getValue());
+    }
+
+    @Test
+    void testNoAddresses() {
+        assertTrue(extractor.extract("").isEmpty());
+        assertTrue(extractor.extract("We ordered 3 boxes and 12 crates. Call 555 1234.\n\nMain St is nice.").isEmpty());
+    }
+
+    @Test
+    void testSmallReads() throws IOException {
+        List<AddressExtractor.Match> matches = new ArrayList<>();
+        long found = extractor.extract(new TrickleReader(DOCUMENT), matches::add);
+
+        assertEquals(4, found);
+        assertEquals(extractor.extract(DOCUMENT).toString(), matches.toString());
+    }
+
+    @Test
+    void testLongDocument() throws IOException {
+        String paragraph = "Lorem ipsum dolor sit amet, with 17 items on order. Deliver to 42 Elm Ave, Portland, OR 97205 "
+                + "before noon.\n\n";
+        int count = 5000;
+        long[] seen = { 0 };
+        long found = extractor.extract(new RepeatingReader(paragraph, count), match -> {
+            long expectedStart = seen[0] * paragraph.length() + paragraph.indexOf("42 Elm");
+            assertEquals(expectedStart, match.getStart());
+            assertEquals("42 Elm Ave, Portland, OR 97205", match.getText());
+            assertEquals(expectedStart + match.getText().length(), match.getEnd());
+            ++seen[0];
+        });
+
+        assertEquals(count, found);
+        assertEquals(count, seen[0]);
+    }
+
+    @Test
+    void testGiantToken() {
+        StringBuilder text = new StringBuilder("See ");
+        for (int i = 0; i < 200_000; i++) {
+            text.append('x');
+        }
+        text.append(" then 9 Oak Ln, Salem, MA 01970 today.");
+
+        List<AddressExtractor.Match> matches = extractor.extract(text);
+
+        assertEquals(1, matches.size());
+        assertMatch(text, matches.get(0), "9 Oak Ln, Salem, MA 01970");
+    }
+
+    private static void assertMatch(final AddressExtractor.Match match, final String text, final Address.Type type) {
+        assertMatch(DOCUMENT, match, text);
+        assertEquals(type, match.getAddress().getType());
+    }
+
+    private static void assertMatch(final CharSequence document, final AddressExtractor.Match match,
+            final String text) {
+        assertEquals(text, match.getText());
+        assertEquals(text, document.subSequence((int) match.getStart(), (int) match.getEnd()).toString());
+    }
+
+    /**
+     * Returns one character per read.
+     */
+    private static class TrickleReader extends StringReader {
+        TrickleReader(final String text) {
+            super(text);
+        }
+
+        @Override
+        public int read(final char[] buffer, final int offset, final int length) throws IOException {
+            return super.read(buffer, offset, Math.min(length, 1));
+        }
+    }
+
+    /**
+     * Returns a paragraph many times over without holding it all in memory.
+     */
+    private static class RepeatingReader extends Reader {
+        private final String paragraph;
+        private int remaining;
+        private int position;
+
+        RepeatingReader(final String paragraph, final int count) {
+            this.paragraph = paragraph;
+            this.remaining = count;
+        }
+
+        @Override
+        public int read(final char[] buffer, final int offset, final int length) {
+            if (remaining == 0) {
+                return -1;
+            }
+            int read = Math.min(length, paragraph.length() - position);
+            paragraph.getChars(position, position + read, buffer, offset);
+            position += read;
+            if (position == paragraph.length()) {
+                position = 0;
+                --remaining;
+            }
+            return read;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+}
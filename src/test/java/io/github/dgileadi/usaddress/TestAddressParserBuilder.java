@@ -0,0 +1,122 @@
+package io.github.dgileadi.usaddress;
+
+import static io.github.dgileadi.usaddress.TestCrfModel.assertSameAddress;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class TestAddressParserBuilder {
+    private static final String ADDRESS = "123 W Main St. Suite 100 Chicago, IL 60601";
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testDefault() {
+        assertSame(AddressParser.getDefault(), AddressParser.getDefault());
+        assertSameAddress(AddressParser.parse(ADDRESS), AddressParser.getDefault().parseAddress(ADDRESS));
+        assertSameAddress(AddressParser.parseAndClean(ADDRESS),
+                AddressParser.getDefault().parseAndCleanAddress(ADDRESS));
+    }
+
+    @Test
+    void testModelPath() throws IOException {
+        Path modelFile = tempDir.resolve("model.crfsuite");
+        Files.write(modelFile, modelBytes());
+
+        AddressParser parser = AddressParser.builder().modelPath(modelFile).build();
+
+        assertSameAddress(AddressParser.parse(ADDRESS), parser.parseAddress(ADDRESS));
+    }
+
+    @Test
+    void testSharedModelPath() throws IOException {
+        Path modelFile = tempDir.resolve("model.crfsuite");
+        Files.write(modelFile, modelBytes());
+
+        AddressParser parser = AddressParser.builder().sharedModelPath(modelFile).build();
+
+        assertSameAddress(AddressParser.parse(ADDRESS), parser.parseAddress(ADDRESS));
+        assertThrows(UncheckedIOException.class, () -> AddressParser.builder()
+                .sharedModelPath(tempDir.resolve("missing.crfsuite")).build().parseAddress(ADDRESS));
+    }
+
+    @Test
+    void testModelBuffer() throws IOException {
+        byte[] bytes = modelBytes();
+        ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.length + 4);
+        buffer.putInt(0).put(bytes).flip().position(4);
+
+        AddressParser parser = AddressParser.builder().modelBuffer(buffer).build();
+
+        assertSameAddress(AddressParser.parseAndClean(ADDRESS), parser.parseAndCleanAddress(ADDRESS));
+        assertEquals(4, buffer.position());
+    }
+
+    @Test
+    void testModelResource() {
+        AddressParser parser = AddressParser.builder().modelResource("usaddr.crfsuite").taggerPoolSize(2).build();
+
+        assertSameAddress(AddressParser.parse(ADDRESS), parser.parseAddress(ADDRESS));
+    }
+
+    @Test
+    void testLazyLoading() throws IOException {
+        AddressParser parser = AddressParser.builder().build();
+        assertFalse(parser.isLoaded());
+
+        parser.parseAddress(ADDRESS);
+        assertTrue(parser.isLoaded());
+
+        parser = AddressParser.builder().build();
+        assertSame(parser, parser.load());
+        assertTrue(parser.isLoaded());
+    }
+
+    @Test
+    void testMissingModel() {
+        AddressParser parser = AddressParser.builder().modelResource("missing.crfsuite").build();
+
+        assertThrows(FileNotFoundException.class, parser::load);
+        assertThrows(UncheckedIOException.class, () -> parser.parseAddress(ADDRESS));
+        assertFalse(parser.isLoaded());
+    }
+
+    @Test
+    void testInvalidModel() throws IOException {
+        Path modelFile = tempDir.resolve("labeled.xml");
+        try (InputStream input = Thread.currentThread().getContextClassLoader().getResourceAsStream("labeled.xml")) {
+            Files.copy(input, modelFile);
+        }
+
+        AddressParser parser = AddressParser.builder().modelPath(modelFile).build();
+
+        assertThrows(IOException.class, parser::load);
+    }
+
+    @Test
+    void testInvalidPoolSize() {
+        assertThrows(IllegalArgumentException.class, () -> AddressParser.builder().taggerPoolSize(0));
+    }
+
+    private static byte[] modelBytes() throws IOException {
+        try (InputStream input = Thread.currentThread().getContextClassLoader()
+                .getResourceAsStream("usaddr.crfsuite")) {
+            return input.readAllBytes();
+        }
+    }
+
+}
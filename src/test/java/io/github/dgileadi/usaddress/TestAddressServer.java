@@ -0,0 +1,251 @@
+package io.github.dgileadi.usaddress;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+class TestAddressServer {
+    private static final String ADDRESS = "123 Main St, Chicago, IL 60601";
+
+    private static AddressServer server;
+    private static HttpClient client;
+
+    @BeforeAll
+    static void startServer() throws IOException {
+        // as an operator would; without it testLoad measures delayed acknowledgements
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+        server = AddressServer.builder().port(0).warmUp(false).build().start();
+        client = HttpClient.newHttpClient();
+    }
+
+    @AfterAll
+    static void stopServer() {
+        server.close();
+    }
+
+    @Test
+    void testParse() throws Exception {
+        String expected = "{\"address\":\"123 Main St, Chicago, IL 60601\",\"addressType\":\"STREET_ADDRESS\","
+                + "\"addressFields\":[{\"type\":\"AddressNumber\",\"value\":\"123\"},"
+                + "{\"type\":\"StreetName\",\"value\":\"Main\"},{\"type\":\"StreetNamePostType\",\"value\":\"St\"},"
+                + "{\"type\":\"PlaceName\",\"value\":\"Chicago\"},{\"type\":\"StateName\",\"value\":\"IL\"},"
+                + "{\"type\":\"ZipCode\",\"value\":\"60601\"}]}\n";
+
+        HttpResponse<String> get = send(request("/parse?address=" + URLEncoder.encode(ADDRESS, StandardCharsets.UTF_8))
+                .GET());
+        assertEquals(200, get.statusCode());
+        assertEquals(expected, get.body());
+
+        HttpResponse<String> post = send(request("/parse").POST(HttpRequest.BodyPublishers.ofString(ADDRESS)));
+        assertEquals(200, post.statusCode());
+        assertEquals(expected, post.body());
+    }
+
+    @Test
+    void testBatch() throws Exception {
+        StringBuilder body = new StringBuilder();
+        int count = 1000;
+        for (int i = 0; i < count; i++) {
+            body.append("{\"id\":").append(i).append(",\"address\":\"").append(i + 1).append(" Elm Ave\"}\n");
+        }
+        body.append("not json\n");
+
+        HttpResponse<String> response = send(
+                request("/batch").POST(HttpRequest.BodyPublishers.ofString(body.toString())));
+
+        assertEquals(200, response.statusCode());
+        String[] lines = response.body().split("\n");
+        assertEquals(count + 1, lines.length);
+        assertTrue(lines[0].startsWith("{\"id\":0,\"address\":\"1 Elm Ave\",\"addressType\":\"STREET_ADDRESS\","),
+                lines[0]);
+        assertTrue(lines[count - 1].startsWith("{\"id\":" + (count - 1) + ","), lines[count - 1]);
+        assertTrue(lines[count].startsWith("{\"addressError\":\"Record " + (count + 1) + ": Invalid JSON"),
+                lines[count]);
+    }
+
+    @Test
+    void testErrors() throws Exception {
+        assertEquals(400, send(request("/parse").GET()).statusCode());
+        assertEquals(404, send(request("/nothing").GET()).statusCode());
+        assertEquals(404, send(request("/parser").GET()).statusCode());
+
+        HttpResponse<String> wrongMethod = send(request("/batch").GET());
+        assertEquals(405, wrongMethod.statusCode());
+        assertEquals("POST", wrongMethod.headers().firstValue("Allow").orElse(null));
+        assertEquals("{\"error\":\"Method not allowed: GET\"}\n", wrongMethod.body());
+
+        try (AddressServer small = AddressServer.builder().port(0).maxBodySize(10).warmUp(false).build().start()) {
+            HttpResponse<String> tooLarge = client.send(
+                    HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + small.getPort() + "/parse"))
+                            .POST(HttpRequest.BodyPublishers.ofString(ADDRESS)).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            assertEquals(413, tooLarge.statusCode());
+        }
+    }
+
+    @Test
+    void testHealth() throws Exception {
+        AddressParser.getDefault().load();
+
+        HttpResponse<String> health = send(request("/health").GET());
+        assertEquals(200, health.statusCode());
+        assertTrue(health.body().startsWith(
+                "{\"status\":\"UP\",\"ready\":true,\"modelVersion\":\"usaddr.crfsuite\",\"active\":0,"),
+                health.body());
+
+        HttpResponse<String> ready = send(request("/ready").GET());
+        assertEquals(200, ready.statusCode());
+        assertEquals("{\"ready\":true}\n", ready.body());
+    }
+
+    @Test
+    void testReadyWhenWarm() throws Exception {
+        AddressParser parser = AddressParser.builder().build();
+        try (AddressServer warming = AddressServer.builder().parser(parser).port(0).build().start()) {
+            HttpRequest ready = HttpRequest
+                    .newBuilder(URI.create("http://127.0.0.1:" + warming.getPort() + "/ready")).build();
+            int status = client.send(ready, HttpResponse.BodyHandlers.ofString()).statusCode();
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+            while (status != 200 && System.nanoTime() - deadline < 0) {
+                assertEquals(503, status);
+                Thread.sleep(50);
+                status = client.send(ready, HttpResponse.BodyHandlers.ofString()).statusCode();
+            }
+            assertEquals(200, status);
+            assertTrue(parser.isWarm());
+        }
+    }
+
+    @Test
+    void testNotReady() throws Exception {
+        AddressParser unloadable = AddressParser.builder().modelResource("missing.crfsuite").build();
+        try (AddressServer broken = AddressServer.builder().parser(unloadable).port(0).build().start()) {
+            HttpClient brokenClient = HttpClient.newHttpClient();
+            URI base = URI.create("http://127.0.0.1:" + broken.getPort());
+
+            HttpResponse<String> ready = brokenClient.send(HttpRequest.newBuilder(base.resolve("/ready")).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            assertEquals(503, ready.statusCode());
+            HttpResponse<String> parse = brokenClient.send(
+                    HttpRequest.newBuilder(base.resolve("/parse?address=1+Elm+Ave")).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            assertEquals(500, parse.statusCode());
+        }
+    }
+
+    @Test
+    void testConcurrencyLimit() throws Exception {
+        CountDownLatch parsing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ParseListener blocking = new ParseListener() {
+            @Override
+            public void parseCompleted(final int tokens, final long nanos) {
+                parsing.countDown();
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        AddressParser parser = AddressParser.builder().listener(blocking).resultCacheSize(0).build();
+        try (AddressServer limited = AddressServer.builder().parser(parser).port(0).maxConcurrency(1)
+                .maxWait(Duration.ZERO).warmUp(false).build().start()) {
+            URI uri = URI.create("http://127.0.0.1:" + limited.getPort() + "/parse?address=1+Elm+Ave");
+            CompletableFuture<HttpResponse<String>> first = client
+                    .sendAsync(HttpRequest.newBuilder(uri).build(), HttpResponse.BodyHandlers.ofString());
+            assertTrue(parsing.await(10, TimeUnit.SECONDS));
+
+            HttpResponse<String> second = client.send(HttpRequest.newBuilder(uri).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            assertEquals(503, second.statusCode());
+            assertEquals("1", second.headers().firstValue("Retry-After").orElse(null));
+
+            HttpResponse<String> health = client.send(
+                    HttpRequest.newBuilder(uri.resolve("/health")).build(), HttpResponse.BodyHandlers.ofString());
+            assertEquals(200, health.statusCode());
+            assertTrue(health.body().contains("\"active\":1,"), health.body());
+
+            release.countDown();
+            assertEquals(200, first.get(10, TimeUnit.SECONDS).statusCode());
+        }
+    }
+
+    /**
+     * Sends requests from several clients at once over loopback, and reports
+     * the request rate and latency percentiles.
+     */
+    @Test
+    void testLoad() throws Exception {
+        List<String> addresses = TestCrfModel.addressStrings("us50_test_tagged.xml");
+        int clients = 8;
+        int requestsPerClient = 250;
+        LatencyHistogram latencies = new LatencyHistogram();
+        AtomicInteger failures = new AtomicInteger();
+
+        ExecutorService executor = Executors.newFixedThreadPool(clients);
+        try {
+            long start = System.nanoTime();
+            List<Future<?>> futures = new ArrayList<>();
+            for (int c = 0; c < clients; c++) {
+                int offset = c;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < requestsPerClient; i++) {
+                        String address = addresses.get((offset * requestsPerClient + i) % addresses.size());
+                        long sent = System.nanoTime();
+                        HttpResponse<String> response = send(
+                                request("/parse").POST(HttpRequest.BodyPublishers.ofString(address)));
+                        latencies.record(System.nanoTime() - sent);
+                        if (response.statusCode() != 200) {
+                            failures.incrementAndGet();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            long elapsed = System.nanoTime() - start;
+
+            ParseMetrics.Latency latency = latencies.snapshot();
+            System.out.printf("%,.0f requests/sec from %d clients, latency %s%n",
+                    clients * requestsPerClient * 1e9 / elapsed, clients, latency);
+            assertEquals(0, failures.get());
+            assertEquals(clients * requestsPerClient, latency.getCount());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static HttpRequest.Builder request(final String path) {
+        return HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + server.getPort() + path));
+    }
+
+    private static HttpResponse<String> send(final HttpRequest.Builder request)
+            throws IOException, InterruptedException {
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+}
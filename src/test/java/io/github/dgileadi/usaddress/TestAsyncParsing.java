@@ -0,0 +1,193 @@
+package io.github.dgileadi.usaddress;
+
+import static io.github.dgileadi.usaddress.TestCrfModel.assertSameAddress;
+import static io.github.dgileadi.usaddress.TestCrfModel.describe;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+class TestAsyncParsing {
+    private static List<String> addresses;
+    private static List<String> expected;
+
+    @BeforeAll
+    static void parseSynchronously() throws Exception {
+        addresses = TestCrfModel.addressStrings("us50_test_tagged.xml");
+        expected = addresses.stream().map(address -> describe(AddressParser.parseAndClean(address)))
+                .collect(Collectors.toList());
+    }
+
+    @Test
+    void testMatchesSynchronous() {
+        List<CompletableFuture<Address>> futures = new ArrayList<>();
+        for (String address : addresses) {
+            futures.add(AddressParser.parseAndCleanAsync(address));
+        }
+        for (int i = 0; i < futures.size(); i++) {
+            assertEquals(expected.get(i), describe(futures.get(i).join()));
+        }
+        assertSameAddress(AddressParser.parse(addresses.get(0)), AddressParser.parseAsync(addresses.get(0)).join());
+    }
+
+    @Test
+    void testConcurrencyLimit() {
+        AtomicInteger active = new AtomicInteger();
+        AtomicInteger maxActive = new AtomicInteger();
+        // count parses rather than executor tasks, since a finishing task starts the next one on its way out
+        ParseListener counting = new ParseListener() {
+            @Override
+            public void stageCompleted(final Stage stage, final long nanos) {
+                if (stage == Stage.TOKENIZE) {
+                    maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+                }
+            }
+
+            @Override
+            public void parseCompleted(final int tokens, final long nanos) {
+                active.decrementAndGet();
+            }
+        };
+        ExecutorService threads = Executors.newCachedThreadPool();
+        try {
+            AddressParser parser = AddressParser.builder().asyncExecutor(threads).asyncConcurrency(3)
+                    .listener(counting).build();
+            List<CompletableFuture<Address>> futures = new ArrayList<>();
+            for (String address : addresses) {
+                futures.add(parser.parseAndCleanAddressAsync(address));
+            }
+            for (int i = 0; i < futures.size(); i++) {
+                assertEquals(expected.get(i), describe(futures.get(i).join()));
+            }
+            assertTrue(maxActive.get() <= 3, "ran " + maxActive.get() + " at once");
+        } finally {
+            threads.shutdown();
+        }
+        assertThrows(IllegalArgumentException.class, () -> AddressParser.builder().asyncConcurrency(0));
+    }
+
+    @Test
+    void testRejectingExecutor() {
+        Thread caller = Thread.currentThread();
+        List<Thread> parsedOn = new ArrayList<>();
+        ParseListener recording = new ParseListener() {
+            @Override
+            public void parseCompleted(final int tokens, final long nanos) {
+                parsedOn.add(Thread.currentThread());
+            }
+        };
+        AtomicInteger attempts = new AtomicInteger();
+        ExecutorService threads = Executors.newSingleThreadExecutor();
+        try {
+            // reject the first task, throw something else for the second, then run the rest
+            AddressParser parser = AddressParser.builder().listener(recording).asyncConcurrency(1)
+                    .asyncExecutor(task -> {
+                        switch (attempts.getAndIncrement()) {
+                            case 0:
+                                throw new RejectedExecutionException();
+                            case 1:
+                                throw new IllegalStateException();
+                            default:
+                                threads.execute(task);
+                        }
+                    }).build();
+
+            ExecutionException rejected = assertThrows(ExecutionException.class,
+                    () -> parser.parseAndCleanAddressAsync(addresses.get(0)).get());
+            assertInstanceOf(RejectedExecutionException.class, rejected.getCause());
+            ExecutionException failed = assertThrows(ExecutionException.class,
+                    () -> parser.parseAndCleanAddressAsync(addresses.get(0)).get());
+            assertInstanceOf(IllegalStateException.class, failed.getCause());
+
+            // neither failure kept its slot, so a parse still runs with a limit of one
+            assertEquals(expected.get(0), describe(parser.parseAndCleanAddressAsync(addresses.get(0)).join()));
+            assertEquals(1, parsedOn.size());
+            assertNotSame(caller, parsedOn.get(0));
+        } finally {
+            threads.shutdown();
+        }
+    }
+
+    @Test
+    void testFailure() {
+        AddressParser parser = AddressParser.builder().modelPath(Path.of("missing.crfsuite")).build();
+
+        ExecutionException e = assertThrows(ExecutionException.class,
+                () -> parser.parseAddressAsync("123 Main St").get());
+        assertInstanceOf(UncheckedIOException.class, e.getCause());
+    }
+
+    /**
+     * Thousands of callers parse at once, half synchronously and half by
+     * waiting on an asynchronous parse. They're virtual threads where the JVM
+     * supports them.
+     */
+    @Test
+    void testManyCallers() throws Exception {
+        ExecutorService callers = virtualThreadExecutor();
+        boolean virtual = callers != null;
+        if (!virtual) {
+            callers = Executors.newFixedThreadPool(500);
+        }
+        int callerCount = virtual ? 10_000 : 2_000;
+        AddressParser parser = AddressParser.builder().build().load();
+
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int caller = 0; caller < callerCount; caller++) {
+                int index = caller % addresses.size();
+                boolean async = caller % 2 == 0;
+                futures.add(callers.submit(() -> {
+                    start.await();
+                    Address parsed = async ? parser.parseAndCleanAddressAsync(addresses.get(index)).join()
+                            : parser.parseAndCleanAddress(addresses.get(index));
+                    assertEquals(expected.get(index), describe(parsed));
+                    return null;
+                }));
+            }
+
+            long startTime = System.nanoTime();
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            System.out.printf("%,d %s callers in %,d ms%n", callerCount, virtual ? "virtual thread" : "platform thread",
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime));
+        } finally {
+            callers.shutdown();
+        }
+    }
+
+    /**
+     * @return an executor that starts a virtual thread per task, or
+     *         {@code null} if the JVM doesn't have virtual threads.
+     */
+    private static ExecutorService virtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+}
@@ -0,0 +1,58 @@
+package io.github.dgileadi.usaddress;
+
+import static io.github.dgileadi.usaddress.TestCrfModel.assertSameAddress;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class TestBatchParsing {
+
+    @Test
+    void testDuplicates() {
+        List<String> batch = List.of("123 Main St, Chicago IL", "456 Elm Ave", "123 MAIN ST,  chicago il",
+                "123 Main St, Chicago IL", "Main St &amp; Elm Ave", "Main St & Elm Ave");
+        BatchResult result = AddressParser.parseAllAndClean(batch);
+
+        assertEquals(3, result.getUniqueCount());
+        assertEquals(3, result.getDuplicateCount());
+        assertEquals(batch.size(), result.getAddresses().size());
+        for (int i = 0; i < batch.size(); i++) {
+            assertSameAddress(AddressParser.parseAndClean(batch.get(i)), result.getAddresses().get(i));
+        }
+        // duplicates keep their own text
+        assertEquals("MAIN", result.getAddresses().get(2).getField(Address.FieldType.STREET_NAME).getValue());
+        assertEquals("6 addresses (3 duplicates)", result.toString());
+    }
+
+    @Test
+    void testCorpus() throws Exception {
+        List<String> addresses = TestCrfModel.addressStrings("us50_test_tagged.xml");
+        List<String> batch = new ArrayList<>(addresses);
+        batch.addAll(addresses.subList(0, 100));
+        Collections.shuffle(batch, new Random(3));
+
+        AddressParser parser = AddressParser.builder().build();
+        BatchResult result = parser.parseAddresses(batch);
+
+        assertEquals(batch.size(), result.getAddresses().size());
+        assertTrue(result.getDuplicateCount() >= 100, result.toString());
+        for (int i = 0; i < batch.size(); i++) {
+            assertSameAddress(parser.parseAddress(batch.get(i)), result.getAddresses().get(i));
+        }
+    }
+
+    @Test
+    void testEmpty() {
+        BatchResult result = AddressParser.parseAll(List.of());
+
+        assertTrue(result.getAddresses().isEmpty());
+        assertEquals(0, result.getDuplicateCount());
+    }
+
+}
@@ -0,0 +1,318 @@
+package io.github.dgileadi.usaddress;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertIterableEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class TestBulkParser {
+
+    @Test
+    void testTextInOrder() throws Exception {
+        List<String> addresses = TestCrfModel.addressStrings("us50_test_tagged.xml");
+        StringBuilder expected = new StringBuilder();
+        for (String address : addresses) {
+            expected.append(json(address, AddressParser.parseAndClean(address))).append('\n');
+        }
+
+        StringWriter output = new StringWriter();
+        BulkParser.Progress progress = BulkParser.builder().threads(4).batchSize(7).maxInFlight(20).build()
+                .run(new StringReader(String.join("\n", addresses)), output);
+
+        assertEquals(expected.toString(), output.toString());
+        assertEquals(addresses.size(), progress.getRecords());
+        assertEquals(0, progress.getErrors());
+    }
+
+    @Test
+    void testRaw() throws IOException {
+        StringWriter output = new StringWriter();
+        BulkParser.builder().clean(false).build().run(new StringReader("123 Main St, Chicago IL"), output);
+
+        assertEquals(json("123 Main St, Chicago IL", AddressParser.parse("123 Main St, Chicago IL")) + "\n",
+                output.toString());
+    }
+
+    @Test
+    void testCsv() throws IOException {
+        String input = "\uFEFFid,Address,note\r\n"
+                + "1,\"123 Main St, Chicago, IL\",\"say \"\"hi\"\"\"\r\n"
+                + "\r\n"
+                + "2,\"PO Box 7\nSpringfield\",\n"
+                + "3\n";
+        StringWriter output = new StringWriter();
+        BulkParser.Progress progress = BulkParser.builder().format(BulkParser.Format.CSV).build()
+                .run(new StringReader(input), output);
+
+        Csv csv = new Csv(new StringReader(output.toString()));
+        List<String> header = csv.readRecord();
+        assertEquals(List.of("id", "Address", "note", "AddressType"), header.subList(0, 4));
+        assertEquals(4 + Address.FieldType.values().length + 1, header.size());
+        int placeName = header.indexOf("PlaceName");
+
+        List<String> first = csv.readRecord();
+        assertEquals(List.of("1", "123 Main St, Chicago, IL", "say \"hi\"", "STREET_ADDRESS"), first.subList(0, 4));
+        assertEquals("Chicago", first.get(placeName));
+        assertEquals("", first.get(first.size() - 1));
+
+        List<String> second = csv.readRecord();
+        assertEquals("PO Box 7\nSpringfield", second.get(1));
+        assertEquals("PO_BOX", second.get(3));
+
+        List<String> third = csv.readRecord();
+        assertEquals("3", third.get(0));
+        assertTrue(third.get(third.size() - 1).startsWith("Record 3: "));
+        assertNull(csv.readRecord());
+
+        assertEquals(3, progress.getRecords());
+        assertEquals(1, progress.getErrors());
+    }
+
+    @Test
+    void testCsvWithoutAddressColumn() {
+        BulkParser parser = BulkParser.builder().format(BulkParser.Format.CSV).build();
+        assertThrows(IOException.class, () -> parser.run(new StringReader("id,street\n1,Main\n"), new StringWriter()));
+    }
+
+    @Test
+    void testNdjson() throws IOException {
+        String input = "{\"id\": 1, \"nested\": {\"address\": 5}, \"address\": \"123 Main St\"}\n"
+                + "\n"
+                + "{\"address\": 12}\n"
+                + "{\"id\": 3, \"address\": \"123 Main\n"
+                + "{}\n";
+        StringWriter output = new StringWriter();
+        BulkParser.Progress progress = BulkParser.builder().format(BulkParser.Format.NDJSON).build()
+                .run(new StringReader(input), output);
+
+        String[] lines = output.toString().split("\n");
+        assertEquals(4, lines.length);
+        assertEquals("{\"id\": 1, \"nested\": {\"address\": 5}, \"address\": \"123 Main St\","
+                + members(AddressParser.parseAndClean("123 Main St")) + "}", lines[0]);
+        assertEquals("{\"address\": 12,\"addressError\":\"Record 2: No \\\"address\\\" string member\"}", lines[1]);
+        assertTrue(lines[2].startsWith("{\"addressError\":\"Record 3: Invalid JSON: "), lines[2]);
+        assertEquals("{\"addressError\":\"Record 4: No \\\"address\\\" string member\"}", lines[3]);
+        assertEquals(4, progress.getRecords());
+        assertEquals(3, progress.getErrors());
+    }
+
+    @Test
+    void testBoundedInFlight() throws IOException {
+        int records = 5000;
+        int batchSize = 10;
+        int maxInFlight = 40;
+        int[] read = new int[1];
+        int[] maxAhead = new int[1];
+
+        Reader input = new Reader() {
+            private String line = "";
+            private int offset;
+
+            @Override
+            public int read(final char[] buffer, final int start, final int length) {
+                if (offset == line.length()) {
+                    if (read[0] == records) {
+                        return -1;
+                    }
+                    line = ++read[0] + " Main St\n";
+                    offset = 0;
+                }
+                // one line at a time, so lines are only read as they're needed
+                int count = Math.min(length, line.length() - offset);
+                line.getChars(offset, offset + count, buffer, start);
+                offset += count;
+                return count;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        Writer output = new Writer() {
+            private int written;
+
+            @Override
+            public void write(final char[] buffer, final int start, final int length) {
+                for (int i = start; i < start + length; i++) {
+                    if (buffer[i] == '\n') {
+                        ++written;
+                    }
+                }
+                maxAhead[0] = Math.max(maxAhead[0], read[0] - written);
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+
+        BulkParser.builder().threads(2).batchSize(batchSize).maxInFlight(maxInFlight).build()
+                .run(new BufferedReader(input, 16), output);
+
+        assertEquals(records, read[0]);
+        // the records in flight plus the batch being read
+        assertTrue(maxAhead[0] <= maxInFlight + batchSize, "read ahead by " + maxAhead[0]);
+    }
+
+    @Test
+    void testProgress() throws IOException {
+        List<BulkParser.Progress> reports = new ArrayList<>();
+        BulkParser.builder().batchSize(1).progress(reports::add, Duration.ZERO).build()
+                .run(new StringReader("1 Main St\n2 Main St\n3 Main St\n"), new StringWriter());
+
+        assertEquals(4, reports.size());
+        assertEquals(3, reports.get(3).getRecords());
+        assertTrue(reports.get(3).toString().startsWith("3 records (0 errors) in "));
+    }
+
+    @Test
+    void testFileChunks(@TempDir final Path directory) throws Exception {
+        // CRLF and bare CR line breaks, multi-byte characters, blank lines and no final line break
+        String input = String.join("\n", TestCrfModel.addressStrings("us50_test_tagged.xml").subList(0, 40))
+                + "\r\n123 Caf\u00e9 St, San Jos\u00e9 CA\r\n\n\n\u65e5\u672c 1\r2 Main St\n\ud83c\udfe0 5 Elm";
+        assertChunksMatchStream(BulkParser.Format.TEXT, input, directory);
+    }
+
+    @Test
+    void testNdjsonFileChunks(@TempDir final Path directory) throws IOException {
+        StringBuilder input = new StringBuilder();
+        for (int i = 0; i < 30; i++) {
+            input.append("{\"id\": ").append(i).append(", \"address\": \"").append(i).append(" Main St\"}\n");
+            if (i % 7 == 0) {
+                input.append("\n  \n{\"address\": \"unterminated\n");
+            }
+        }
+        assertChunksMatchStream(BulkParser.Format.NDJSON, input.toString(), directory);
+    }
+
+    @Test
+    void testEmptyFile(@TempDir final Path directory) throws IOException {
+        Path input = Files.createFile(directory.resolve("empty.txt"));
+        BulkParser parser = BulkParser.builder().build();
+
+        assertEquals(0, parser.run(input, directory.resolve("out.ndjson")).getRecords());
+        assertEquals("", Files.readString(directory.resolve("out.ndjson")));
+        assertEquals(0, parser.runInParts(input, directory.resolve("parts")).getRecords());
+    }
+
+    @Test
+    void testCsvFile(@TempDir final Path directory) throws IOException {
+        String input = "id,address\n1,\"123 Main St,\nChicago IL\"\n2,PO Box 7\n";
+        Path file = Files.writeString(directory.resolve("in.csv"), input);
+        BulkParser parser = BulkParser.builder().format(BulkParser.Format.CSV).chunkSize(1).build();
+
+        StringWriter expected = new StringWriter();
+        parser.run(new StringReader(input), expected);
+        parser.run(file, directory.resolve("out.csv"));
+        assertEquals(expected.toString(), Files.readString(directory.resolve("out.csv")));
+        assertThrows(IllegalStateException.class, () -> parser.runInParts(file, directory.resolve("parts")));
+    }
+
+    /**
+     * Check that splitting a file into chunks of many sizes, including sizes
+     * that end chunks inside line breaks and multi-byte characters, gives the
+     * same output as streaming it.
+     */
+    private static void assertChunksMatchStream(final BulkParser.Format format, final String input,
+            final Path directory) throws IOException {
+        Path file = Files.writeString(directory.resolve("in"), input);
+        StringWriter expected = new StringWriter();
+        BulkParser.Progress streamed = BulkParser.builder().format(format).build()
+                .run(new StringReader(input), expected);
+
+        int size = input.getBytes(StandardCharsets.UTF_8).length;
+        for (int chunkSize : new int[] { 1, 2, 3, 5, 17, 64, 333, size - 1, size, 1 << 20 }) {
+            BulkParser parser = BulkParser.builder().format(format).threads(3).chunkSize(chunkSize).build();
+            Path output = directory.resolve("out-" + chunkSize);
+            BulkParser.Progress progress = parser.run(file, output);
+            assertEquals(expected.toString(), Files.readString(output), "chunks of " + chunkSize);
+            assertEquals(streamed.getRecords(), progress.getRecords());
+            assertEquals(streamed.getErrors(), progress.getErrors());
+
+            Path parts = directory.resolve("parts-" + chunkSize);
+            progress = parser.runInParts(file, parts);
+            StringBuilder joined = new StringBuilder();
+            try (Stream<Path> files = Files.list(parts)) {
+                for (Path part : (Iterable<Path>) files.sorted()::iterator) {
+                    joined.append(Files.readString(part));
+                }
+            }
+            assertEquals(expected.toString(), joined.toString(), "parts of " + chunkSize);
+            assertEquals(streamed.getRecords(), progress.getRecords());
+        }
+    }
+
+    @Test
+    void testJson() {
+        assertEquals("a\"bé/\n", Json.getString(" {\"x\": [1, {\"y\": null}], \"k\": \"a\\\"b\\u00e9\\/\\n\"} ", "k"));
+        assertNull(Json.getString("{}", "k"));
+        assertNull(Json.getString("{\"k\": true}", "k"));
+        assertThrows(IllegalArgumentException.class, () -> Json.getString("[]", "k"));
+        assertThrows(IllegalArgumentException.class, () -> Json.getString("{\"k\": 01}", "k"));
+        assertThrows(IllegalArgumentException.class, () -> Json.getString("{\"k\": \"v\"} x", "k"));
+        assertThrows(IllegalArgumentException.class, () -> Json.getString("{\"k\": \"v\",}", "k"));
+        assertEquals("\u00e9\u00e9", Json.getString("{\"k\": \"\\u00E9\\u00e9\"}", "k"));
+        assertThrows(IllegalArgumentException.class, () -> Json.getString("{\"k\": \"\\u+0e9\"}", "k"));
+        assertThrows(IllegalArgumentException.class, () -> Json.getString("{\"k\": \"\\u00e\"}", "k"));
+
+        StringBuilder out = new StringBuilder();
+        Json.appendString(out, "a\"\\\n\u0001");
+        assertEquals("\"a\\\"\\\\\\n\\u0001\"", out.toString());
+    }
+
+    @Test
+    void testCsvRecords() throws IOException {
+        Csv csv = new Csv(new StringReader("a,\"b,\"\"c\"\"\",\r\n\"x\"y,z"));
+        assertIterableEquals(List.of("a", "b,\"c\"", ""), csv.readRecord());
+        assertIterableEquals(List.of("xy", "z"), csv.readRecord());
+        assertNull(csv.readRecord());
+
+        StringBuilder out = new StringBuilder();
+        Csv.appendField(out, "plain");
+        out.append(',');
+        Csv.appendField(out, "has \"quotes\", commas");
+        assertEquals("plain,\"has \"\"quotes\"\", commas\"", out.toString());
+    }
+
+    private static String json(final String input, final Address address) {
+        StringBuilder out = new StringBuilder("{\"address\":");
+        Json.appendString(out, input);
+        return out.append(',').append(members(address)).append('}').toString();
+    }
+
+    private static String members(final Address address) {
+        StringBuilder out = new StringBuilder("\"addressType\":\"").append(address.getType())
+                .append("\",\"addressFields\":[");
+        for (int i = 0; i < address.getFields().size(); i++) {
+            Address.Field field = address.getFields().get(i);
+            out.append(i == 0 ? "" : ",").append("{\"type\":\"").append(field.getType().getLabel())
+                    .append("\",\"value\":");
+            Json.appendString(out, field.getValue());
+            out.append('}');
+        }
+        return out.append(']').toString();
+    }
+
+}
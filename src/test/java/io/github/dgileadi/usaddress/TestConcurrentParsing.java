@@ -0,0 +1,113 @@
+package io.github.dgileadi.usaddress;
+
+import static io.github.dgileadi.usaddress.TestCrfModel.describe;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Parses the test corpora from many threads at once, checking that every
+ * result matches a single-threaded parse and reporting how throughput scales.
+ */
+class TestConcurrentParsing {
+    private static final int ROUNDS = 3;
+
+    private static List<String> addresses;
+    private static List<String> expected;
+
+    @BeforeAll
+    static void parseSingleThreaded() throws Exception {
+        addresses = new ArrayList<>();
+        addresses.addAll(TestCrfModel.addressStrings("synthetic_osm_data.xml"));
+        addresses.addAll(TestCrfModel.addressStrings("us50_test_tagged.xml"));
+        addresses.addAll(TestCrfModel.addressStrings("labeled.xml"));
+        expected = addresses.stream().map(address -> describe(AddressParser.parse(address)))
+                .collect(Collectors.toList());
+    }
+
+    @Test
+    void testTaggerPool() throws IOException {
+        CrfModel model = TestCrfModel.readModel();
+        TaggerPool pool = new TaggerPool(model, new FeatureDictionary(model), 1);
+
+        Tagger first = pool.acquire();
+        Tagger second = pool.acquire();
+        assertNotSame(first, second);
+
+        pool.release(first);
+        pool.release(second);
+        assertSame(first, pool.acquire());
+        assertNotSame(second, pool.acquire());
+    }
+
+    @Test
+    void testScaling() throws Exception {
+        int cores = Runtime.getRuntime().availableProcessors();
+        // warm up so the single-threaded baseline isn't measured in the interpreter
+        parseConcurrently(1);
+
+        double singleThreaded = 0;
+        double twoThreads = 0;
+        for (int threads = 1; threads <= Math.max(4, cores); threads *= 2) {
+            double throughput = parseConcurrently(threads);
+            if (threads == 1) {
+                singleThreaded = throughput;
+            } else if (threads == 2) {
+                twoThreads = throughput;
+            }
+            System.out.printf("%d thread(s) on %d core(s): %,.0f addresses/sec (%.2fx)%n", threads, cores,
+                    throughput, throughput / singleThreaded);
+        }
+
+        // timing assertions are too noisy for shared build machines, so they're opt-in
+        assumeTrue(cores >= 2 && Boolean.getBoolean("usaddress.assertScaling"),
+                "set usaddress.assertScaling on a quiet multi-core machine to check scaling");
+        assertTrue(twoThreads > 1.5 * singleThreaded, "Parsing should scale with threads");
+    }
+
+    private double parseConcurrently(final int threads) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int thread = 0; thread < threads; thread++) {
+                int offset = thread * addresses.size() / threads;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int round = 0; round < ROUNDS; round++) {
+                        for (int i = 0; i < addresses.size(); i++) {
+                            int index = (offset + i) % addresses.size();
+                            assertEquals(expected.get(index), describe(AddressParser.parse(addresses.get(index))));
+                        }
+                    }
+                    return null;
+                }));
+            }
+
+            long startTime = System.nanoTime();
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            long elapsed = System.nanoTime() - startTime;
+            return (double) threads * ROUNDS * addresses.size() * 1_000_000_000L / elapsed;
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+}
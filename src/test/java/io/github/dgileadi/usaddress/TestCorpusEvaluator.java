@@ -0,0 +1,111 @@
+package io.github.dgileadi.usaddress;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+
+import io.github.dgileadi.usaddress.Address.FieldType;
+
+class TestCorpusEvaluator {
+
+    @Test
+    void testCorpora() throws IOException {
+        CorpusEvaluator evaluator = CorpusEvaluator.builder()
+                .coarseLabels(FieldType.STREET_NAME, FieldType.ADDRESS_NUMBER)
+                .minTokenAccuracy(0.98)
+                .minSequenceAccuracy(0.92)
+                .minTokenAccuracy(FieldType.STREET_NAME, 0.95)
+                .minAddressesPerSecond(100)
+                .maxBytesPerAddress(16 * 1024)
+                .build();
+        for (String corpus : new String[] { "synthetic_osm_data.xml", "us50_test_tagged.xml", "labeled.xml" }) {
+            evaluate(evaluator, corpus);
+            CorpusEvaluator.Report report = evaluate(evaluator, corpus);
+            System.out.println(corpus + ": " + report);
+            assertTrue(report.isPassed(), corpus + ": " + report);
+        }
+    }
+
+    @Test
+    void testCounts() throws IOException {
+        CorpusEvaluator.Report report = CorpusEvaluator.builder().build().evaluate(xml("<AddressCollection>"
+                + "<AddressString><AddressNumber>123</AddressNumber> <StreetName>Main</StreetName> "
+                + "<StreetNamePostType>St,</StreetNamePostType> <PlaceName>Chicago,</PlaceName> "
+                + "<StateName>IL</StateName></AddressString>\n"
+                + "<AddressString><AddressNumber>9</AddressNumber> <PlaceName>Elm</PlaceName> "
+                + "<StreetNamePostType>Ave</StreetNamePostType></AddressString>\n"
+                + "<AddressString><ZipCode>60601</ZipCode><ZipCode>60602</ZipCode></AddressString>"
+                + "</AddressCollection>"));
+
+        assertEquals(3, report.getAddresses());
+        assertEquals(1, report.getMisTokenized());
+        assertEquals(10, report.getAccuracy().getTokens());
+        assertEquals(7 / 10.0, report.getAccuracy().getTokenAccuracy());
+        assertEquals(1 / 3.0, report.getAccuracy().getSequenceAccuracy());
+
+        CorpusEvaluator.Accuracy placeName = report.getFieldAccuracy().get(FieldType.PLACE_NAME);
+        assertEquals(2, placeName.getTokens());
+        assertEquals(0.5, placeName.getTokenAccuracy());
+        assertEquals(0.5, placeName.getSequenceAccuracy());
+        // Elm was labeled a street name, which the corpus doesn't have in that address
+        CorpusEvaluator.Accuracy streetName = report.getFieldAccuracy().get(FieldType.STREET_NAME);
+        assertEquals(1, streetName.getTokens());
+        assertEquals(1.0, streetName.getTokenAccuracy());
+        assertEquals(2, streetName.getSequences());
+        assertEquals(0.5, streetName.getSequenceAccuracy());
+
+        assertTrue(report.getAddressesPerSecond() > 0);
+        assertTrue(report.isPassed());
+    }
+
+    @Test
+    void testThresholds() throws IOException {
+        CorpusEvaluator evaluator = CorpusEvaluator.builder()
+                .minTokenAccuracy(1)
+                .minSequenceAccuracy(1)
+                .minTokenAccuracy(FieldType.STREET_NAME, 1)
+                .minTokenAccuracy(FieldType.RECIPIENT, 1)
+                .minAddressesPerSecond(1e12)
+                .build();
+        CorpusEvaluator.Report report = evaluate(evaluator, "us50_test_tagged.xml");
+
+        assertFalse(report.isPassed());
+        assertEquals(4, report.getFailures().size(), report.getFailures().toString());
+        assertTrue(report.getFailures().get(0).startsWith("token accuracy "));
+        assertTrue(report.getFailures().get(2).startsWith("StreetName token accuracy "));
+        assertTrue(report.toString().contains("FAILED: sequence accuracy "));
+    }
+
+    @Test
+    void testInvalidCorpus() {
+        CorpusEvaluator evaluator = CorpusEvaluator.builder().build();
+        assertThrows(IOException.class, () -> evaluator.evaluate(
+                xml("<AddressCollection><AddressString><Street>Main</Street></AddressString></AddressCollection>")));
+        assertThrows(IOException.class, () -> evaluator.evaluate(xml("<AddressCollection><AddressString>")));
+        assertThrows(IllegalArgumentException.class, () -> CorpusEvaluator.builder().minTokenAccuracy(1.5));
+    }
+
+    private static CorpusEvaluator.Report evaluate(final CorpusEvaluator evaluator, final String corpus)
+            throws IOException {
+        try (InputStream input = resource(corpus)) {
+            return evaluator.evaluate(input);
+        }
+    }
+
+    private static InputStream resource(final String name) {
+        return Thread.currentThread().getContextClassLoader().getResourceAsStream(name);
+    }
+
+    private static InputStream xml(final String text) {
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+}
@@ -0,0 +1,259 @@
+package io.github.dgileadi.usaddress;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.w3c.dom.Document;
+import org.w3c.dom.NodeList;
+import org.xml.sax.InputSource;
+
+import com.gengoai.jcrfsuite.CrfTagger;
+import com.gengoai.jcrfsuite.util.Pair;
+
+import third_party.org.chokkan.crfsuite.Attribute;
+import third_party.org.chokkan.crfsuite.Item;
+import third_party.org.chokkan.crfsuite.ItemSequence;
+
+/**
+ * Compares the pure-Java decoder against the native CRFsuite tagger, fed with
+ * the original string-built features.
+ */
+class TestCrfModel {
+    private static final Pattern CLEAN_TOKEN_PATTERN = Pattern.compile("(^[\\W]*)|([^.\\w]*$)",
+            Pattern.UNICODE_CHARACTER_CLASS);
+    private static final Pattern DIGITS_PATTERN = Pattern.compile("\\d+");
+    private static final Pattern TOKEN_ENDS_IN_PUNC_PATTERN = Pattern.compile(".+[^.\\w]",
+            Pattern.UNICODE_CHARACTER_CLASS);
+    private static final Pattern VOWELS_PATTERN = Pattern.compile("[aeiou]", Pattern.CASE_INSENSITIVE);
+    private static final Pattern TRAILING_ZEROS_PATTERN = Pattern.compile("(0+)$");
+
+    private static CrfTagger nativeTagger;
+
+    @TempDir
+    static Path tempDir;
+
+    @BeforeAll
+    static void loadNativeTagger() throws IOException {
+        Path modelFile = tempDir.resolve("usaddr.crfsuite");
+        try (InputStream input = resource("usaddr.crfsuite")) {
+            Files.copy(input, modelFile);
+        }
+        nativeTagger = new CrfTagger(modelFile.toString());
+    }
+
+    @Test
+    void testReadModel() throws IOException {
+        CrfModel model = readModel();
+
+        assertEquals(nativeTagger.getlabels().size(), model.getLabelCount());
+        for (int i = 0; i < model.getLabelCount(); i++) {
+            assertEquals(nativeTagger.getlabels().get(i), model.getLabel(i));
+        }
+        assertEquals("AddressNumber", model.getLabel(0));
+        assertEquals(0, model.getAttributeId("street_name"));
+        assertEquals(-1, model.getAttributeId("word:nowhereville"));
+    }
+
+    @Test
+    void testRejectsOtherFiles() {
+        assertThrows(IOException.class, () -> CrfModel.read(ByteBuffer.wrap(new byte[10])));
+        assertThrows(IOException.class,
+                () -> CrfModel.read(ByteBuffer.wrap("<AddressCollection></AddressCollection>".getBytes())));
+    }
+
+    @Test
+    void testTruncatedModel() throws IOException {
+        byte[] bytes;
+        try (InputStream input = resource("usaddr.crfsuite")) {
+            bytes = input.readAllBytes();
+        }
+        assertThrows(IOException.class, () -> CrfModel.read(ByteBuffer.wrap(Arrays.copyOf(bytes, 60000))));
+    }
+
+    @Test
+    void testMatchesNativeTagger() throws Exception {
+        for (String corpus : new String[] { "labeled.xml", "us50_test_tagged.xml", "simple_address_patterns.xml",
+                "synthetic_osm_data.xml", "synthetic_clean_osm_data.xml" }) {
+            for (String address : addressStrings(corpus)) {
+                List<String> tokens = AddressParser.tokenize(address);
+                if (tokens.isEmpty()) {
+                    continue;
+                }
+                List<Pair<String, Double>> expected = nativeTagger.tag(tokens2features(tokens));
+                List<Address.Field> actual = AddressParser.parse(address).getFields();
+
+                assertEquals(expected.size(), actual.size(), address);
+                for (int i = 0; i < expected.size(); i++) {
+                    assertEquals(expected.get(i).getFirst(), actual.get(i).getType().getLabel(),
+                            "Token " + i + " of address <" + address + ">");
+                }
+            }
+        }
+    }
+
+    static CrfModel readModel() throws IOException {
+        try (InputStream input = resource("usaddr.crfsuite")) {
+            return CrfModel.read(ByteBuffer.wrap(input.readAllBytes()));
+        }
+    }
+
+    static List<String> addressStrings(final String xmlResource) throws Exception {
+        List<String> addresses = new ArrayList<>();
+        try (InputStream input = resource(xmlResource)) {
+            DocumentBuilder dBuilder = DocumentBuilderFactory.newInstance().newDocumentBuilder();
+            Document doc = dBuilder.parse(new InputSource(input));
+            NodeList addressStrings = doc.getDocumentElement().getElementsByTagName("AddressString");
+            for (int i = 0; i < addressStrings.getLength(); i++) {
+                addresses.add(addressStrings.item(i).getTextContent());
+            }
+        }
+        return addresses;
+    }
+
+    /**
+     * @return an address's type and fields, for comparing parses.
+     */
+    static String describe(final Address address) {
+        return address.getType() + ":" + describe(address.getFields());
+    }
+
+    static String describe(final List<Address.Field> fields) {
+        return fields.stream().map(field -> field.getType().getLabel() + "=" + field.getValue())
+                .collect(Collectors.joining("|"));
+    }
+
+    static void assertSameAddress(final Address expected, final Address actual) {
+        assertEquals(describe(expected), describe(actual));
+    }
+
+    static void assertSameAddress(final Address expected, final Address actual, final String message) {
+        assertEquals(describe(expected), describe(actual), message);
+    }
+
+    private static InputStream resource(final String name) {
+        return Thread.currentThread().getContextClassLoader().getResourceAsStream(name);
+    }
+
+    // The original featurization, sent to the native tagger as a reference.
+
+    private static ItemSequence tokens2features(final List<String> address) {
+        ItemSequence featureSequence = new ItemSequence();
+        Item previousFeatures = null;
+
+        int i = 0;
+        for (String token : address) {
+            Item features = tokenFeatures(token);
+            Item currentFeatures = copy(features);
+
+            if (i > 0) {
+                addAttributes("previous", previousFeatures, features);
+                if (i == 1) {
+                    features.add(new Attribute("previous:address.start", 1));
+                }
+                addAttributes("next", currentFeatures, featureSequence.get(i - 1));
+            }
+
+            featureSequence.add(features);
+
+            previousFeatures = currentFeatures;
+            ++i;
+        }
+
+        featureSequence.get(0).add(new Attribute("address.start", 1));
+        featureSequence.get((int) featureSequence.size() - 1).add(new Attribute("address.end", 1));
+        if (featureSequence.size() > 1) {
+            featureSequence.get((int) featureSequence.size() - 2).add(new Attribute("next:address.end", 1));
+        }
+
+        return featureSequence;
+    }
+
+    private static Item tokenFeatures(final String token) {
+        String cleanToken;
+        if ("&".equals(token) || "#".equals(token) || "½".equals(token)) {
+            cleanToken = token;
+        } else {
+            cleanToken = CLEAN_TOKEN_PATTERN.matcher(token).replaceAll("");
+        }
+
+        String tokenAbbrev = cleanToken.toLowerCase(Locale.US).replace(".", "");
+        Item features = new Item();
+        features.add(new Attribute("abbrev", cleanToken.endsWith(".") ? 1 : 0));
+        features.add(new Attribute("digits:" + digits(cleanToken), 1));
+        if (DIGITS_PATTERN.matcher(tokenAbbrev).matches()) {
+            features.add(new Attribute("word", 0));
+            features.add(new Attribute("trailing.zeros:" + trailingZeros(tokenAbbrev), 1));
+            features.add(new Attribute("length:d:" + tokenAbbrev.length(), 1));
+        } else {
+            features.add(new Attribute("word:" + tokenAbbrev, 1));
+            features.add(new Attribute("trailing.zeros", 0));
+            features.add(new Attribute("length:w:" + tokenAbbrev.length(), 1));
+        }
+        if (TOKEN_ENDS_IN_PUNC_PATTERN.matcher(token).matches()) {
+            features.add(new Attribute("endsinpunc:" + token.charAt(token.length() - 1), 1));
+        } else {
+            features.add(new Attribute("endsinpunc", 0));
+        }
+        features.add(new Attribute("directional", AddressParser.DIRECTIONS.contains(tokenAbbrev) ? 1 : 0));
+        features.add(new Attribute("street_name", AddressParser.STREET_NAMES.contains(tokenAbbrev) ? 1 : 0));
+        features.add(new Attribute("has.vowels",
+                VOWELS_PATTERN.matcher(tokenAbbrev.substring(1)).find() ? 1 : 0));
+
+        return features;
+    }
+
+    private static Item copy(final Item source) {
+        Item copy = new Item();
+        for (int i = 0; i < source.size(); i++) {
+            copy.add(source.get(i));
+        }
+        return copy;
+    }
+
+    private static void addAttributes(final String prefix, final Item from, final Item into) {
+        for (int i = 0; i < from.size(); i++) {
+            Attribute attribute = from.get(i);
+            into.add(new Attribute(prefix + ":" + attribute.getAttr(), attribute.getValue()));
+        }
+    }
+
+    private static String digits(final String token) {
+        Matcher matcher = DIGITS_PATTERN.matcher(token);
+        if (matcher.matches()) {
+            return "all_digits";
+        } else if (matcher.find()) {
+            return "some_digits";
+        } else {
+            return "no_digits";
+        }
+    }
+
+    private static String trailingZeros(final String token) {
+        Matcher matcher = TRAILING_ZEROS_PATTERN.matcher(token);
+        if (matcher.matches()) {
+            return matcher.group(1);
+        } else {
+            return "";
+        }
+    }
+
+}
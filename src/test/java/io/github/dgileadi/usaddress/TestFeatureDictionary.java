@@ -0,0 +1,54 @@
+package io.github.dgileadi.usaddress;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+class TestFeatureDictionary {
+    private static FeatureDictionary dictionary;
+
+    @BeforeAll
+    static void loadDictionary() throws IOException {
+        dictionary = new FeatureDictionary(TestCrfModel.readModel());
+    }
+
+    @Test
+    void testKnownFeatures() {
+        assertEquals("word:st", dictionary.getName(dictionary.word("st")));
+        assertEquals("digits:all_digits", dictionary.getName(dictionary.digits(FeatureDictionary.ALL_DIGITS)));
+        assertEquals("digits:no_digits", dictionary.getName(dictionary.digits(FeatureDictionary.NO_DIGITS)));
+        assertEquals("trailing.zeros:", dictionary.getName(dictionary.trailingZeros(0)));
+        assertEquals("length:d:5", dictionary.getName(dictionary.digitLength(5)));
+        assertEquals("length:w:2", dictionary.getName(dictionary.wordLength(2)));
+        assertEquals("endsinpunc:,", dictionary.getName(dictionary.endsInPunc(',')));
+        assertEquals("street_name", dictionary.getName(dictionary.streetName()));
+        assertEquals("directional", dictionary.getName(dictionary.directional()));
+    }
+
+    @Test
+    void testUnknownFeatures() {
+        assertEquals(-1, dictionary.word("nowhereville"));
+        assertEquals(-1, dictionary.wordLength(1000));
+        assertEquals(-1, dictionary.trailingZeros(1000));
+        assertEquals(-1, dictionary.endsInPunc('~'));
+    }
+
+    @Test
+    void testStateScores() throws IOException {
+        CrfModel model = TestCrfModel.readModel();
+        int[][] features = {
+                { dictionary.digits(FeatureDictionary.ALL_DIGITS), dictionary.digitLength(3) },
+                { dictionary.word("main"), dictionary.wordLength(4), dictionary.hasVowels() },
+                { dictionary.word("st"), dictionary.wordLength(2), dictionary.streetName() } };
+
+        int[] tags = model.tag(dictionary.stateScores(features), features.length);
+
+        assertEquals("AddressNumber", model.getLabel(tags[0]));
+        assertEquals("StreetName", model.getLabel(tags[1]));
+        assertEquals("StreetNamePostType", model.getLabel(tags[2]));
+    }
+
+}
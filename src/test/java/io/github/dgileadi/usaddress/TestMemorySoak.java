@@ -0,0 +1,88 @@
+package io.github.dgileadi.usaddress;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Parses the OSM corpus over and over, checking that neither the garbage each
+ * parse leaves behind nor the memory the parser retains grows.
+ */
+class TestMemorySoak {
+    private static final int WARM_UP_ROUNDS = 3;
+    private static final int ROUNDS = 8;
+    private static final long MAX_HEAP_GROWTH = 4 * 1024 * 1024;
+
+    @Test
+    void testMemoryStaysFlat() throws Exception {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        assumeTrue(threads instanceof com.sun.management.ThreadMXBean,
+                "needs a JVM that reports allocated bytes per thread");
+        com.sun.management.ThreadMXBean allocations = (com.sun.management.ThreadMXBean) threads;
+        assumeTrue(allocations.isThreadAllocatedMemorySupported() && allocations.isThreadAllocatedMemoryEnabled(),
+                "needs a JVM that reports allocated bytes per thread");
+
+        List<String> addresses = TestCrfModel.addressStrings("synthetic_osm_data.xml");
+        AddressParser parser = AddressParser.builder().build().load();
+        for (int round = 0; round < WARM_UP_ROUNDS; round++) {
+            parseAll(parser, addresses);
+        }
+
+        long threadId = Thread.currentThread().getId();
+        long firstBytesPerParse = 0;
+        long firstHeap = 0;
+        long firstBuffers = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            long allocated = allocations.getThreadAllocatedBytes(threadId);
+            parseAll(parser, addresses);
+            long bytesPerParse = (allocations.getThreadAllocatedBytes(threadId) - allocated) / addresses.size();
+            long heap = usedHeapAfterGc();
+            long buffers = bufferPoolMemory();
+            System.out.printf("round %d: %,d bytes allocated per parse, %,d bytes of heap, %,d bytes of buffers%n",
+                    round, bytesPerParse, heap, buffers);
+
+            if (round == 0) {
+                firstBytesPerParse = bytesPerParse;
+                firstHeap = heap;
+                firstBuffers = buffers;
+            } else {
+                assertTrue(bytesPerParse <= firstBytesPerParse * 11 / 10,
+                        "allocation per parse grew from " + firstBytesPerParse + " to " + bytesPerParse);
+                assertTrue(heap - firstHeap < MAX_HEAP_GROWTH,
+                        "retained heap grew from " + firstHeap + " to " + heap);
+                assertEquals(firstBuffers, buffers, "direct and mapped buffer memory changed");
+            }
+        }
+    }
+
+    private static void parseAll(final AddressParser parser, final List<String> addresses) {
+        for (String address : addresses) {
+            parser.parseAndCleanAddress(address);
+        }
+    }
+
+    private static long usedHeapAfterGc() throws InterruptedException {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(20);
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static long bufferPoolMemory() {
+        long used = 0;
+        for (BufferPoolMXBean pool : ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class)) {
+            used += pool.getMemoryUsed();
+        }
+        return used;
+    }
+
+}
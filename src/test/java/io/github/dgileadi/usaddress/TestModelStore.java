@@ -0,0 +1,61 @@
+package io.github.dgileadi.usaddress;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class TestModelStore {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testShared() throws IOException {
+        Path modelFile = copyModel("model.crfsuite");
+
+        FeatureDictionary first = ModelStore.load(modelFile);
+        assertSame(first, ModelStore.load(modelFile));
+        assertSame(first, ModelStore.load(tempDir.resolve(".").resolve("model.crfsuite")));
+        assertNotSame(first, ModelStore.load(copyModel("other.crfsuite")));
+        assertEquals(TestCrfModel.readModel().getLabelCount(), first.getModel().getLabelCount());
+    }
+
+    @Test
+    void testChangedFile() throws IOException {
+        Path modelFile = copyModel("model.crfsuite");
+        FeatureDictionary first = ModelStore.load(modelFile);
+
+        Files.setLastModifiedTime(modelFile, FileTime.fromMillis(Files.getLastModifiedTime(modelFile).toMillis()
+                - 60_000));
+
+        assertNotSame(first, ModelStore.load(modelFile));
+    }
+
+    @Test
+    void testInvalidFile() throws IOException {
+        Path modelFile = tempDir.resolve("model.crfsuite");
+        Files.write(modelFile, new byte[] { 'l', 'C', 'R', 'F' });
+
+        assertThrows(IOException.class, () -> ModelStore.load(modelFile));
+        assertThrows(IOException.class, () -> ModelStore.load(tempDir.resolve("missing.crfsuite")));
+    }
+
+    private Path copyModel(final String name) throws IOException {
+        Path modelFile = tempDir.resolve(name);
+        try (InputStream input = AddressParser.class.getResourceAsStream("/usaddr.crfsuite")) {
+            Files.copy(input, modelFile);
+        }
+        return modelFile;
+    }
+
+}
@@ -0,0 +1,151 @@
+package io.github.dgileadi.usaddress;
+
+import static io.github.dgileadi.usaddress.TestCrfModel.assertSameAddress;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.lang.ref.WeakReference;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class TestModelSwap {
+    private static final String ADDRESS = "123 Main St, Chicago, IL 60601";
+
+    @TempDir
+    static Path directory;
+    private static Path modelFile;
+
+    @BeforeAll
+    static void copyModel() throws IOException {
+        modelFile = directory.resolve("retrained.crfsuite");
+        try (InputStream input = AddressParser.class.getResourceAsStream("/usaddr.crfsuite")) {
+            Files.copy(input, modelFile);
+        }
+    }
+
+    @Test
+    void testSwap() throws IOException {
+        AddressParser parser = AddressParser.builder().modelVersion("v1").build();
+        assertEquals("v1", parser.getModelVersion());
+        Address before = parser.parseAndCleanAddress(ADDRESS);
+        assertEquals("v1", before.getModelVersion());
+
+        assertEquals("v1", parser.swapModel(modelFile, "v2"));
+
+        assertEquals("v2", parser.getModelVersion());
+        Address after = parser.parseAndCleanAddress(ADDRESS);
+        assertEquals("v2", after.getModelVersion());
+        assertSameAddress(before, after);
+        assertEquals("v2", parser.newSession().parse(ADDRESS).getModelVersion());
+    }
+
+    @Test
+    void testDefaultVersion() throws IOException {
+        assertEquals("usaddr.crfsuite", AddressParser.parseAndClean(ADDRESS).getModelVersion());
+
+        AddressParser unloaded = AddressParser.builder().build();
+        assertEquals("usaddr.crfsuite", unloaded.swapModel(modelFile, "v2"));
+        assertEquals("v2", unloaded.parseAddress(ADDRESS).getModelVersion());
+    }
+
+    @Test
+    void testInvalidModel() throws IOException {
+        Path invalid = Files.writeString(directory.resolve("invalid.crfsuite"), "not a model");
+        AddressParser parser = AddressParser.builder().modelVersion("v1").build().load();
+
+        assertThrows(IOException.class, () -> parser.swapModel(invalid, "v2"));
+        CompletionException error = assertThrows(CompletionException.class,
+                () -> parser.swapModelAsync(invalid, "v2").join());
+        assertTrue(error.getCause() instanceof UncheckedIOException, error.toString());
+        assertEquals("v1", parser.getModelVersion());
+        assertEquals("v1", parser.parseAddress(ADDRESS).getModelVersion());
+    }
+
+    @Test
+    void testSwapWhileParsing() throws Exception {
+        List<String> addresses = TestCrfModel.addressStrings("us50_test_tagged.xml");
+        AddressParser parser = AddressParser.builder().modelVersion("v1").build().load();
+        Set<String> versions = ConcurrentHashMap.newKeySet();
+        LatencyHistogram latencies = new LatencyHistogram();
+        CompletableFuture<String> swap = new CompletableFuture<>();
+
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            Future<?> single = executor.submit(() -> {
+                // keep going a little after the swap
+                int after = 0;
+                for (int i = 0; !swap.isDone() || after++ < 100; i++) {
+                    long start = System.nanoTime();
+                    Address address = parser.parseAndCleanAddress(addresses.get(i % addresses.size()));
+                    latencies.record(System.nanoTime() - start);
+                    versions.add(address.getModelVersion());
+                }
+                return null;
+            });
+            Future<?> batches = executor.submit(() -> {
+                while (!swap.isDone()) {
+                    Set<String> batchVersions = new HashSet<>();
+                    for (Address address : parser.parseAndCleanAddresses(addresses).getAddresses()) {
+                        batchVersions.add(address.getModelVersion());
+                    }
+                    // every address in a batch is parsed with the same model
+                    assertEquals(1, batchVersions.size(), batchVersions.toString());
+                }
+                return null;
+            });
+
+            parser.swapModelAsync(modelFile, "v2").whenComplete((previous, error) -> {
+                if (error != null) {
+                    swap.completeExceptionally(error);
+                } else {
+                    swap.complete(previous);
+                }
+            });
+            assertEquals("v1", swap.get(60, TimeUnit.SECONDS));
+            single.get(60, TimeUnit.SECONDS);
+            batches.get(60, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        System.out.println("Parse latency during the swap: " + latencies.snapshot());
+        assertEquals(Set.of("v1", "v2"), versions);
+        assertTrue(latencies.snapshot().getCount() > 100);
+        assertEquals("v2", parser.parseAndCleanAddress(ADDRESS).getModelVersion());
+    }
+
+    @Test
+    void testOldModelFreed() throws Exception {
+        AddressParser parser = AddressParser.builder().build();
+        WeakReference<ParserModel> old = new WeakReference<>(parser.getModel());
+        parser.parseAddress(ADDRESS);
+
+        parser.swapModel(modelFile, "v2");
+
+        for (int i = 0; i < 50 && old.get() != null; i++) {
+            System.gc();
+            Thread.sleep(20);
+        }
+        assertNull(old.get());
+    }
+
+}
@@ -0,0 +1,130 @@
+package io.github.dgileadi.usaddress;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+
+class TestParseMetrics {
+
+    @Test
+    void testBuckets() {
+        for (long value : new long[] { 0, 1, 31, 32, 33, 63, 64, 65, 1000, 123_456_789, Long.MAX_VALUE }) {
+            int bucket = LatencyHistogram.bucket(value);
+            assertTrue(LatencyHistogram.highestValue(bucket) >= value, "value " + value);
+            assertTrue(bucket == 0 || LatencyHistogram.highestValue(bucket - 1) < value, "value " + value);
+        }
+    }
+
+    @Test
+    void testPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = 1; value <= 100_000; value++) {
+            histogram.record(value);
+        }
+        ParseMetrics.Latency latency = histogram.snapshot();
+
+        assertEquals(100_000, latency.getCount());
+        assertEquals(50_000.5, latency.getMeanNanos());
+        assertClose(50_000, latency.getP50Nanos());
+        assertClose(99_000, latency.getP99Nanos());
+        assertClose(99_900, latency.getP999Nanos());
+        assertClose(100_000, latency.getMaxNanos());
+        assertEquals(1, latency.getPercentileNanos(0));
+        assertThrows(IllegalArgumentException.class, () -> latency.getPercentileNanos(101));
+    }
+
+    @Test
+    void testStages() {
+        ParseMetrics metrics = new ParseMetrics();
+        AddressParser parser = AddressParser.builder().listener(metrics).build();
+
+        parser.parseAddress("123 Main St");
+        parser.parseAndCleanAddress("PO Box 5, Chicago IL");
+
+        ParseMetrics.Snapshot snapshot = metrics.snapshot();
+        assertEquals(2, snapshot.getParseCount());
+        assertEquals(8, snapshot.getTokenCount());
+        assertEquals(0, snapshot.getErrorCount());
+        assertEquals(2, snapshot.getLatency().getCount());
+        assertEquals(2, snapshot.getLatency(ParseListener.Stage.TOKENIZE).getCount());
+        assertEquals(2, snapshot.getLatency(ParseListener.Stage.FEATURES).getCount());
+        assertEquals(2, snapshot.getLatency(ParseListener.Stage.TAG).getCount());
+        assertEquals(1, snapshot.getLatency(ParseListener.Stage.CLEAN).getCount());
+        assertTrue(snapshot.getLatency().getMaxNanos() >= snapshot.getLatency(ParseListener.Stage.TAG).getMaxNanos());
+
+        Map<String, Long> map = snapshot.toMap();
+        assertEquals(2L, map.get("parses"));
+        assertEquals(1L, map.get("clean.count"));
+        assertTrue(map.containsKey("latency.p999"));
+        assertTrue(snapshot.toString().startsWith("2 parses, 8 tokens, 0 errors"));
+    }
+
+    @Test
+    void testCacheHitsSkipTagging() {
+        ParseMetrics metrics = new ParseMetrics();
+        AddressParser parser = AddressParser.builder().listener(metrics).resultCacheSize(10).build();
+
+        parser.parseAddress("123 Main St");
+        parser.parseAddress("123 Main St");
+
+        ParseMetrics.Snapshot snapshot = metrics.snapshot();
+        assertEquals(2, snapshot.getParseCount());
+        assertEquals(2, snapshot.getLatency(ParseListener.Stage.TOKENIZE).getCount());
+        assertEquals(1, snapshot.getLatency(ParseListener.Stage.TAG).getCount());
+    }
+
+    @Test
+    void testErrors() {
+        ParseMetrics metrics = new ParseMetrics();
+        AddressParser parser = AddressParser.builder().modelBuffer(ByteBuffer.wrap(new byte[10])).listener(metrics)
+                .build();
+
+        assertThrows(UncheckedIOException.class, () -> parser.parseAddress("123 Main St"));
+        assertThrows(UncheckedIOException.class, () -> parser.parseAndCleanAddress("123 Main St"));
+        assertEquals(2, metrics.snapshot().getErrorCount());
+        assertEquals(0, metrics.snapshot().getParseCount());
+    }
+
+    @Test
+    void testConcurrentRecording() throws Exception {
+        ParseMetrics metrics = new ParseMetrics();
+        AddressParser parser = AddressParser.builder().listener(metrics).build();
+        List<String> addresses = TestCrfModel.addressStrings("us50_test_tagged.xml");
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int thread = 0; thread < 4; thread++) {
+                futures.add(executor.submit(() -> addresses.forEach(parser::parseAndCleanAddress)));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        ParseMetrics.Snapshot snapshot = metrics.snapshot();
+        assertEquals(4 * addresses.size(), snapshot.getParseCount());
+        assertEquals(4 * addresses.size(), snapshot.getLatency(ParseListener.Stage.CLEAN).getCount());
+        assertEquals(4L * addresses.stream().mapToInt(address -> AddressParser.tokenize(address).size()).sum(),
+                snapshot.getTokenCount());
+    }
+
+    private static void assertClose(final long expected, final long actual) {
+        assertTrue(Math.abs(actual - expected) <= expected / LatencyHistogram.SUB_BUCKETS,
+                "expected about " + expected + " but was " + actual);
+    }
+
+}
@@ -0,0 +1,79 @@
+package io.github.dgileadi.usaddress;
+
+import static io.github.dgileadi.usaddress.TestCrfModel.assertSameAddress;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+class TestParseSession {
+
+    @Test
+    void testTyping() throws Exception {
+        AddressParser parser = AddressParser.getDefault();
+        for (String corpus : new String[] { "us50_test_tagged.xml", "labeled.xml" }) {
+            for (String address : TestCrfModel.addressStrings(corpus)) {
+                ParseSession session = parser.newSession();
+                for (int end = 0; end <= address.length(); end++) {
+                    String typed = address.substring(0, end);
+                    assertSameAddress(parser.parseAndCleanAddress(typed), session.parseAndClean(typed), typed);
+                }
+                // then delete it again
+                for (int end = address.length(); end >= 0; end--) {
+                    String typed = address.substring(0, end);
+                    assertSameAddress(parser.parseAddress(typed), session.parse(typed), typed);
+                }
+            }
+        }
+    }
+
+    @Test
+    void testEditing() throws Exception {
+        AddressParser parser = AddressParser.getDefault();
+        List<String> addresses = TestCrfModel.addressStrings("synthetic_osm_data.xml");
+        Random random = new Random(42);
+        String edits = " ,.#&-0123456789abcdefghijklmnopqrstuvwxyzNSEW";
+        ParseSession session = parser.newSession();
+        StringBuilder text = new StringBuilder(addresses.get(0));
+        for (int i = 0; i < 20_000; i++) {
+            int choice = random.nextInt(10);
+            int position = random.nextInt(text.length() + 1);
+            if (choice == 0) {
+                text.setLength(0);
+                text.append(addresses.get(random.nextInt(addresses.size())));
+            } else if (choice < 4 && position < text.length()) {
+                text.deleteCharAt(position);
+            } else if (choice < 6) {
+                text.insert(position, edits.charAt(random.nextInt(edits.length())));
+            } else {
+                text.append(edits.charAt(random.nextInt(edits.length())));
+            }
+            String typed = text.toString();
+            assertSameAddress(parser.parseAndCleanAddress(typed), session.parseAndClean(typed), typed);
+        }
+
+        session.reset();
+        assertSameAddress(parser.parseAddress(addresses.get(1)), session.parse(addresses.get(1)), addresses.get(1));
+    }
+
+    @Test
+    void testListener() {
+        AtomicInteger parses = new AtomicInteger();
+        ParseSession session = AddressParser.builder().listener(new ParseListener() {
+            @Override
+            public void parseCompleted(final int tokens, final long nanos) {
+                parses.incrementAndGet();
+                assertTrue(nanos >= 0);
+            }
+        }).build().newSession();
+
+        session.parse("123 Main");
+        session.parseAndClean("123 Main St");
+        assertEquals(2, parses.get());
+    }
+
+}
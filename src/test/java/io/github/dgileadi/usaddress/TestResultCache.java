@@ -0,0 +1,117 @@
+package io.github.dgileadi.usaddress;
+
+import static io.github.dgileadi.usaddress.TestCrfModel.assertSameAddress;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Locale;
+
+import org.junit.jupiter.api.Test;
+
+class TestResultCache {
+
+    @Test
+    void testEviction() {
+        LruCache<String, String> cache = new LruCache<>(1);
+        cache.put("a", "1");
+        cache.put("b", "2");
+
+        assertNull(cache.get("a"));
+        assertEquals("2", cache.get("b"));
+
+        CacheStats stats = cache.stats();
+        assertEquals(1, stats.getHitCount());
+        assertEquals(1, stats.getMissCount());
+        assertEquals(1, stats.getEvictionCount());
+        assertEquals(1, stats.getSize());
+        assertEquals(0.5, stats.getHitRate());
+    }
+
+    @Test
+    void testLeastRecentlyUsed() {
+        LruCache<String, String> cache = new LruCache<>(3);
+        cache.put("a", "1");
+        cache.put("b", "2");
+        cache.put("c", "3");
+        cache.get("a");
+        cache.put("d", "4");
+
+        assertNull(cache.get("b"));
+        assertEquals("1", cache.get("a"));
+        assertEquals("3", cache.get("c"));
+        assertEquals("4", cache.get("d"));
+    }
+
+    @Test
+    void testBounded() {
+        LruCache<String, String> cache = new LruCache<>(1000);
+        for (int i = 0; i < 5000; i++) {
+            cache.put("key" + i, "value" + i);
+        }
+
+        CacheStats stats = cache.stats();
+        assertTrue(stats.getSize() <= 1000);
+        assertEquals(5000, stats.getSize() + stats.getEvictionCount());
+        assertEquals("value4999", cache.get("key4999"));
+    }
+
+    @Test
+    void testCachedResultsMatch() throws Exception {
+        AddressParser cached = AddressParser.builder().resultCacheSize(10_000).build();
+        List<String> addresses = TestCrfModel.addressStrings("us50_test_tagged.xml");
+
+        for (int round = 0; round < 2; round++) {
+            for (String address : addresses) {
+                assertSameAddress(AddressParser.parse(address), cached.parseAddress(address));
+                assertSameAddress(AddressParser.parseAndClean(address), cached.parseAndCleanAddress(address));
+            }
+        }
+
+        CacheStats stats = cached.getResultCacheStats();
+        assertEquals(addresses.size() * 4, stats.getHitCount() + stats.getMissCount());
+        assertEquals(addresses.stream().map(address -> AddressParser.normalize(AddressParser.tokenize(address)))
+                .distinct().count(), stats.getMissCount());
+
+        // hits for addresses that differ only in case
+        for (String address : TestCrfModel.addressStrings("synthetic_osm_data.xml")) {
+            String lower = address.toLowerCase(Locale.US);
+            String upper = address.toUpperCase(Locale.US);
+            cached.parseAddress(lower);
+            assertSameAddress(AddressParser.parse(upper), cached.parseAddress(upper));
+        }
+    }
+
+    @Test
+    void testNormalizedKey() {
+        AddressParser cached = AddressParser.builder().resultCacheSize(10).build();
+
+        cached.parseAddress("123 MAIN ST  CHICAGO &amp; IL");
+        Address address = cached.parseAddress("123 main st chicago & il");
+
+        assertEquals(1, cached.getResultCacheStats().getHitCount());
+        assertSameAddress(AddressParser.parse("123 main st chicago & il"), address);
+    }
+
+    @Test
+    void testDisabled() {
+        AddressParser parser = AddressParser.builder().build();
+        parser.parseAddress("123 Main St");
+        parser.parseAddress("123 Main St");
+
+        assertEquals(0, parser.getResultCacheStats().getHitCount());
+        assertEquals(0, parser.getResultCacheStats().getMaxSize());
+    }
+
+    @Test
+    void testImmutable() {
+        Address address = AddressParser.builder().resultCacheSize(10).build().parseAddress("123 Main St");
+
+        assertThrows(UnsupportedOperationException.class, () -> address.getFields().remove(0));
+        assertSame(address.getFields(), address.getFields());
+    }
+
+}
@@ -0,0 +1,57 @@
+package io.github.dgileadi.usaddress;
+
+import static io.github.dgileadi.usaddress.TestCrfModel.assertSameAddress;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class TestTokenCache {
+
+    @Test
+    void testCachedFeaturesMatch() throws Exception {
+        AddressParser cached = AddressParser.builder().tokenCacheSize(10_000).build();
+        List<String> addresses = new ArrayList<>();
+        addresses.addAll(TestCrfModel.addressStrings("us50_test_tagged.xml"));
+        addresses.addAll(TestCrfModel.addressStrings("synthetic_osm_data.xml"));
+
+        int tokens = 0;
+        for (String address : addresses) {
+            assertSameAddress(AddressParser.parse(address), cached.parseAddress(address));
+            tokens += AddressParser.tokenize(address).size();
+        }
+
+        CacheStats stats = cached.getTokenCacheStats();
+        assertEquals(tokens, stats.getHitCount() + stats.getMissCount());
+        assertEquals(stats.getMissCount(), stats.getSize() + stats.getEvictionCount());
+        // street types, directions, states and cities repeat across addresses
+        assertTrue(stats.getHitRate() > 0.5, stats.toString());
+    }
+
+    @Test
+    void testRepeatedTokens() {
+        AddressParser cached = AddressParser.builder().tokenCacheSize(100).build();
+        cached.parseAddress("123 Main St");
+        cached.parseAddress("456 Main St");
+
+        CacheStats stats = cached.getTokenCacheStats();
+        assertEquals(2, stats.getHitCount());
+        assertEquals(4, stats.getMissCount());
+        assertEquals(4, stats.getSize());
+    }
+
+    @Test
+    void testDisabled() {
+        AddressParser parser = AddressParser.builder().build();
+        parser.parseAddress("123 Main St");
+
+        assertEquals(0, parser.getTokenCacheStats().getMissCount());
+        assertEquals(0, parser.getTokenCacheStats().getMaxSize());
+        assertThrows(IllegalArgumentException.class, () -> AddressParser.builder().tokenCacheSize(-1));
+    }
+
+}
@@ -0,0 +1,122 @@
+package io.github.dgileadi.usaddress;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Compares the hand-written token feature scans against the original regular
+ * expressions.
+ */
+class TestTokenFeatures {
+    private static final Pattern CLEAN_TOKEN_PATTERN = Pattern.compile("(^[\\W]*)|([^.\\w]*$)",
+            Pattern.UNICODE_CHARACTER_CLASS);
+    private static final Pattern DIGITS_PATTERN = Pattern.compile("\\d+");
+    private static final Pattern TOKEN_ENDS_IN_PUNC_PATTERN = Pattern.compile(".+[^.\\w]",
+            Pattern.UNICODE_CHARACTER_CLASS);
+    private static final Pattern VOWELS_PATTERN = Pattern.compile("[aeiou]", Pattern.CASE_INSENSITIVE);
+    private static final Pattern TRAILING_ZEROS_PATTERN = Pattern.compile("(0+)$");
+
+    private static final String[] PIECES = { "a", "E", "x", "Q", "5", "0", "00", "_", "-", ".", ",", ";", ")", "(",
+            "/", "'", "\n", "\r", "\u0085", " ", "½", "é", "́", "⃝", "‍", "٣",
+            "𝐀", "😀", "\ud800", "İ", "St", "N", "Ave", "12" };
+
+    private static FeatureDictionary dictionary;
+
+    @BeforeAll
+    static void readDictionary() throws Exception {
+        dictionary = new FeatureDictionary(TestCrfModel.readModel());
+    }
+
+    @Test
+    void testMatchesRegexOnCorpora() throws Exception {
+        for (String corpus : new String[] { "labeled.xml", "us50_test_tagged.xml", "simple_address_patterns.xml",
+                "synthetic_osm_data.xml", "synthetic_clean_osm_data.xml" }) {
+            for (String address : TestCrfModel.addressStrings(corpus)) {
+                for (String token : AddressParser.tokenize(address)) {
+                    assertMatchesRegex(token);
+                }
+            }
+        }
+    }
+
+    @Test
+    void testMatchesRegexOnRandomTokens() {
+        Random random = new Random(17);
+        for (int i = 0; i < 50_000; i++) {
+            StringBuilder text = new StringBuilder();
+            for (int j = 1 + random.nextInt(6); j > 0; j--) {
+                text.append(PIECES[random.nextInt(PIECES.length)]);
+            }
+            for (String token : AddressParser.tokenize(text.toString())) {
+                assertMatchesRegex(token);
+            }
+        }
+    }
+
+    private static void assertMatchesRegex(final String token) {
+        assertArrayEquals(regexFeatures(token), AddressParser.tokenFeatures(dictionary, token), () -> escape(token));
+    }
+
+    private static int[] regexFeatures(final String token) {
+        String cleanToken;
+        if ("&".equals(token) || "#".equals(token) || "½".equals(token)) {
+            cleanToken = token;
+        } else {
+            cleanToken = CLEAN_TOKEN_PATTERN.matcher(token).replaceAll("");
+        }
+
+        String tokenAbbrev = cleanToken.toLowerCase(Locale.US).replace(".", "");
+        int[] features = new int[8];
+        int size = 0;
+        if (cleanToken.endsWith(".")) {
+            size = add(features, size, dictionary.abbrev());
+        }
+        Matcher digits = DIGITS_PATTERN.matcher(cleanToken);
+        size = add(features, size, dictionary.digits(digits.matches() ? FeatureDictionary.ALL_DIGITS
+                : digits.find() ? FeatureDictionary.SOME_DIGITS : FeatureDictionary.NO_DIGITS));
+        if (DIGITS_PATTERN.matcher(tokenAbbrev).matches()) {
+            Matcher zeros = TRAILING_ZEROS_PATTERN.matcher(tokenAbbrev);
+            size = add(features, size, dictionary.trailingZeros(zeros.matches() ? zeros.group(1).length() : 0));
+            size = add(features, size, dictionary.digitLength(tokenAbbrev.length()));
+        } else {
+            size = add(features, size, dictionary.word(tokenAbbrev));
+            size = add(features, size, dictionary.wordLength(tokenAbbrev.length()));
+        }
+        if (TOKEN_ENDS_IN_PUNC_PATTERN.matcher(token).matches()) {
+            size = add(features, size, dictionary.endsInPunc(token.charAt(token.length() - 1)));
+        }
+        if (AddressParser.DIRECTIONS.contains(tokenAbbrev)) {
+            size = add(features, size, dictionary.directional());
+        }
+        if (AddressParser.STREET_NAMES.contains(tokenAbbrev)) {
+            size = add(features, size, dictionary.streetName());
+        }
+        if (VOWELS_PATTERN.matcher(tokenAbbrev.substring(1)).find()) {
+            size = add(features, size, dictionary.hasVowels());
+        }
+        return Arrays.copyOf(features, size);
+    }
+
+    private static int add(final int[] features, final int size, final int feature) {
+        if (feature < 0) {
+            return size;
+        }
+        features[size] = feature;
+        return size + 1;
+    }
+
+    private static String escape(final CharSequence text) {
+        StringBuilder escaped = new StringBuilder();
+        text.chars().forEach(c -> escaped.append(c < 0x20 || c > 0x7e ? String.format("\\u%04x", c) : (char) c));
+        return escaped.toString();
+    }
+
+}
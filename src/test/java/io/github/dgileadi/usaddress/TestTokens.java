@@ -0,0 +1,90 @@
+package io.github.dgileadi.usaddress;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertIterableEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Compares the hand-written tokenizer against the original regular
+ * expressions.
+ */
+class TestTokens {
+    private static final Pattern AMPERSAND_PATTERN = Pattern.compile("(&#38;)|(&amp;)");
+    private static final Pattern TOKEN_PATTERN = Pattern.compile("\\(*\\b[^\\s,;#&\\(\\)]+[.,;\\)\\n]*|[#&]",
+            Pattern.UNICODE_CHARACTER_CLASS);
+
+    private static final String[] PIECES = { "a", "Z", "5", "_", "-", ".", ",", ";", "#", "&", "(", ")", "((", " ",
+            "\n", "\t", " ", " ", "\u0085", "½", "é", "é", "́", "⃝", "‍",
+            "٣", "𝐀", "😀", "\ud800", "&amp;", "&#38;", "&amp", "&#38", "St.", "Apt",
+            "12" };
+
+    @Test
+    void testMatchesRegexOnCorpora() throws Exception {
+        for (String corpus : new String[] { "labeled.xml", "us50_test_tagged.xml", "simple_address_patterns.xml",
+                "synthetic_osm_data.xml", "synthetic_clean_osm_data.xml" }) {
+            for (String address : TestCrfModel.addressStrings(corpus)) {
+                assertIterableEquals(regexTokens(address), Tokens.of(address), address);
+            }
+        }
+    }
+
+    @Test
+    void testMatchesRegexOnRandomInput() {
+        Random random = new Random(38);
+        for (int i = 0; i < 20_000; i++) {
+            StringBuilder address = new StringBuilder();
+            int pieces = random.nextInt(12);
+            for (int j = 0; j < pieces; j++) {
+                address.append(PIECES[random.nextInt(PIECES.length)]);
+            }
+            assertIterableEquals(regexTokens(address.toString()), Tokens.of(address.toString()),
+                    () -> escape(address));
+        }
+    }
+
+    @Test
+    void testOffsets() {
+        String address = "(123) Main St.,&amp; #4";
+        Tokens tokens = Tokens.of(address);
+
+        assertIterableEquals(List.of("(123)", "Main", "St.,", "&", "#", "4"), tokens);
+        assertEquals(0, tokens.start(0));
+        assertEquals(5, tokens.end(0));
+        assertEquals("&amp;", address.substring(tokens.start(3), tokens.end(3)));
+        assertEquals(address.length(), tokens.end(5));
+        assertThrows(IndexOutOfBoundsException.class, () -> tokens.start(6));
+    }
+
+    @Test
+    void testManyTokens() {
+        StringBuilder address = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            address.append(i).append(' ');
+        }
+        assertIterableEquals(regexTokens(address.toString()), Tokens.of(address.toString()));
+    }
+
+    private static List<String> regexTokens(final String address) {
+        Matcher matcher = TOKEN_PATTERN.matcher(AMPERSAND_PATTERN.matcher(address).replaceAll("&"));
+        List<String> tokens = new ArrayList<>();
+        while (matcher.find()) {
+            tokens.add(matcher.group());
+        }
+        return tokens;
+    }
+
+    private static String escape(final CharSequence address) {
+        StringBuilder escaped = new StringBuilder();
+        address.chars().forEach(c -> escaped.append(c < 0x20 || c > 0x7e ? String.format("\\u%04x", c) : (char) c));
+        return escaped.toString();
+    }
+
+}
@@ -0,0 +1,62 @@
+package io.github.dgileadi.usaddress;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+class TestWarmUp {
+
+    @Test
+    void testBundledAddresses() throws Exception {
+        AddressParser parser = AddressParser.builder().build();
+        assertFalse(parser.isWarm());
+
+        WarmUpResult result = parser.warmUp();
+        System.out.println(result);
+
+        assertTrue(parser.isLoaded());
+        assertTrue(parser.isWarm());
+        assertTrue(result.getAddresses() > 0);
+        assertTrue(result.getColdNanos() > 0);
+        assertTrue(result.getWarmNanos() > 0);
+        assertTrue(result.isStable() || result.getElapsed().getSeconds() >= 10, result.toString());
+    }
+
+    @Test
+    void testSkipsResultCacheAndListener() throws Exception {
+        AtomicInteger parses = new AtomicInteger();
+        ParseListener counting = new ParseListener() {
+            @Override
+            public void parseCompleted(final int tokens, final long nanos) {
+                parses.incrementAndGet();
+            }
+        };
+        AddressParser parser = AddressParser.builder().resultCacheSize(100).listener(counting).build();
+        List<String> addresses = List.of("123 Main St, Chicago, IL 60601", "PO Box 42, Evanston, IL 60201",
+                "Broadway and 42nd St");
+
+        WarmUpResult result = parser.warmUp(addresses, Duration.ofMillis(100));
+
+        assertTrue(parser.isWarm());
+        assertTrue(result.getAddresses() >= addresses.size());
+        assertTrue(result.getElapsed().toMillis() < 5000, result.toString());
+        assertEquals(0, parses.get());
+        assertEquals(0, parser.getResultCacheStats().getSize());
+    }
+
+    @Test
+    void testNoAddresses() {
+        AddressParser parser = AddressParser.builder().build();
+        assertThrows(IllegalArgumentException.class, () -> parser.warmUp(Collections.emptyList(), Duration.ZERO));
+        assertFalse(parser.isWarm());
+    }
+
+}
@@ -0,0 +1,63 @@
+package io.github.dgileadi.usaddress;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Locale;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class TestWordTrie {
+    private static final WordTrie STREET_NAMES = new WordTrie(AddressParser.STREET_NAMES);
+    private static final WordTrie DIRECTIONS = new WordTrie(AddressParser.DIRECTIONS);
+
+    @Test
+    void testMatches() {
+        assertTrue(STREET_NAMES.matches("St."));
+        assertTrue(STREET_NAMES.matches("S.T"));
+        assertTrue(STREET_NAMES.matches("AVENUE"));
+        assertTrue(STREET_NAMES.matches("\u212Ays"));
+        assertFalse(STREET_NAMES.matches("Main"));
+        assertFalse(STREET_NAMES.matches("s"));
+        assertFalse(STREET_NAMES.matches(""));
+        assertFalse(STREET_NAMES.matches("..."));
+        assertFalse(STREET_NAMES.matches("\u0130sle"));
+        assertTrue(DIRECTIONS.matches("N.E."));
+        assertTrue(DIRECTIONS.matches("xNorthx", 1, 6));
+        assertFalse(DIRECTIONS.matches("xNorthx", 0, 6));
+    }
+
+    @Test
+    void testMatchesSets() throws Exception {
+        for (String corpus : new String[] { "labeled.xml", "us50_test_tagged.xml", "synthetic_osm_data.xml" }) {
+            for (String address : TestCrfModel.addressStrings(corpus)) {
+                for (String token : AddressParser.tokenize(address)) {
+                    assertMatchesSets(token);
+                }
+            }
+        }
+    }
+
+    @Test
+    void testMatchesSetsOnRandomText() {
+        String[] pieces = { "s", "t", "S", "T", "a", "v", "e", "N", "w", "k", "\u212A", "y", "\u0130", "i", "l",
+                ".", "-", "\u03A3", "\u00E9" };
+        Random random = new Random(7);
+        for (int i = 0; i < 100_000; i++) {
+            StringBuilder text = new StringBuilder();
+            for (int j = random.nextInt(7); j > 0; j--) {
+                text.append(pieces[random.nextInt(pieces.length)]);
+            }
+            assertMatchesSets(text.toString());
+        }
+    }
+
+    private static void assertMatchesSets(final String text) {
+        String abbrev = text.toLowerCase(Locale.US).replace(".", "");
+        assertEquals(AddressParser.STREET_NAMES.contains(abbrev), STREET_NAMES.matches(text), text);
+        assertEquals(AddressParser.DIRECTIONS.contains(abbrev), DIRECTIONS.matches(text), text);
+    }
+
+}